@@ -12,7 +12,7 @@ CREATE TABLE IF NOT EXISTS vaudoise_clients (
     company_id VARCHAR(50) UNIQUE,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     created_by VARCHAR(255) NOT NULL DEFAULT 'SUPER_ADMIN',
-    modified_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    modified_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     modified_by VARCHAR(255) NOT NULL DEFAULT 'SUPER_ADMIN'
 );
 
@@ -25,11 +25,38 @@ CREATE TABLE IF NOT EXISTS vaudoise_contracts (
     client_id BIGINT,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     created_by VARCHAR(255) NOT NULL DEFAULT 'SUPER_ADMIN',
-    modified_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    modified_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     modified_by VARCHAR(255) NOT NULL DEFAULT 'SUPER_ADMIN',
     CONSTRAINT fk_client FOREIGN KEY (client_id) REFERENCES vaudoise_clients(id) ON DELETE CASCADE
 );
 
+-- Keyset pagination indexes: (sort key, id)
+CREATE INDEX IF NOT EXISTS idx_clients_name_id ON vaudoise_clients (name, id);
+CREATE INDEX IF NOT EXISTS idx_clients_phone_id ON vaudoise_clients (phone, id);
+CREATE INDEX IF NOT EXISTS idx_contracts_client_id_id ON vaudoise_contracts (client_id, id);
+CREATE INDEX IF NOT EXISTS idx_contracts_start_date_id ON vaudoise_contracts (start_date, id);
+CREATE INDEX IF NOT EXISTS idx_contracts_cost_id ON vaudoise_contracts (cost, id);
+CREATE INDEX IF NOT EXISTS idx_contracts_end_date ON vaudoise_contracts (end_date);
+
+-- Change feed: rows read in (modified_at, id) order, deletions kept as tombstones
+ALTER TABLE vaudoise_clients MODIFY modified_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+ALTER TABLE vaudoise_contracts MODIFY modified_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+CREATE INDEX IF NOT EXISTS idx_clients_modified_at_id ON vaudoise_clients (modified_at, id);
+CREATE INDEX IF NOT EXISTS idx_contracts_modified_at_id ON vaudoise_contracts (modified_at, id);
+
+CREATE TABLE IF NOT EXISTS vaudoise_tombstones (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entity_type VARCHAR(20) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    uuid VARCHAR(36) NOT NULL,
+    deleted_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)
+);
+CREATE INDEX IF NOT EXISTS idx_tombstones_deleted_at_id ON vaudoise_tombstones (deleted_at, id);
+
+-- Optimistic locking, the version also backs the ETag of the single-row reads
+ALTER TABLE vaudoise_clients ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE vaudoise_contracts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
 INSERT INTO vaudoise_clients (uuid, name, email, phone, client_type, birth_date)
 VALUES (UUID(), 'SUPER_ADMIN', 'admin@example.com', '+1000000000', 'PERSON', '1970-01-01');
 
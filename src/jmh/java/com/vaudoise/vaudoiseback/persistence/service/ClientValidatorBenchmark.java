@@ -0,0 +1,78 @@
+package com.vaudoise.vaudoiseback.persistence.service;
+
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.persistence.entities.enums.ClientType;
+import com.vaudoise.vaudoiseback.rest.dto.ClientRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Field validation of a client request, as run by the create, update and bulk import paths before the database
+ * checks. The rejected case includes building the exception.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientValidatorBenchmark {
+
+    private final ClientValidator validator = new ClientValidator();
+
+    private ClientRequest person;
+    private ClientRequest company;
+    private ClientRequest invalidEmail;
+
+    @Setup
+    public void setUp() {
+        person = request(ClientType.PERSON, "john.doe@example.com");
+        person.setBirthDate(LocalDate.of(1980, 1, 1));
+        company = request(ClientType.COMPANY, "contact@acme.com");
+        company.setCompanyId("ACME-123");
+        invalidEmail = request(ClientType.PERSON, "john.doe(at)example.com");
+        invalidEmail.setBirthDate(LocalDate.of(1980, 1, 1));
+    }
+
+    @Benchmark
+    public ClientRequest validPerson() throws CustomException {
+        validator.validate(person);
+        return person;
+    }
+
+    @Benchmark
+    public ClientRequest validCompany() throws CustomException {
+        validator.validate(company);
+        return company;
+    }
+
+    @Benchmark
+    public CustomException rejected() {
+        try {
+            validator.validate(invalidEmail);
+            return null;
+        } catch (CustomException ex) {
+            return ex;
+        }
+    }
+
+    private static ClientRequest request(ClientType type, String email) {
+        ClientRequest request = new ClientRequest();
+        request.setType(type);
+        request.setName("John Doe");
+        request.setEmail(email);
+        request.setPhone("+41211234567");
+        return request;
+    }
+}
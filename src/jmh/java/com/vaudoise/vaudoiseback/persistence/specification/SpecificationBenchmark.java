@@ -0,0 +1,84 @@
+package com.vaudoise.vaudoiseback.persistence.specification;
+
+import com.vaudoise.vaudoiseback.persistence.entities.Client;
+import com.vaudoise.vaudoiseback.persistence.entities.Contract;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search DSL: parsing a query into a specification, with and without the cache of compiled queries, and combining
+ * criteria in {@link GenericSpecificationsBuilder}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecificationBenchmark {
+
+    @Benchmark
+    public Specification<?> buildCached(Query query) {
+        return SpecificationUtils.buildSpecificationFromQuery(query.query, query.entityClass);
+    }
+
+    @Benchmark
+    public Specification<?> parse(Query query) {
+        return SpecificationUtils.compileQuery(query.query, query.entityClass, null);
+    }
+
+    @Benchmark
+    public Specification<Contract> combineCriteria(Criteria criteria) {
+        return criteria.builder.build();
+    }
+
+    /**
+     * Free text search, client attributes and contract ranges
+     */
+    @State(Scope.Benchmark)
+    public static class Query {
+
+        @Param({"john", "name:John*,email~example", "cost>=100,cost<5000,endDate:null,startDate>2024-01-01"})
+        private String query;
+
+        private Class<?> entityClass;
+
+        @Setup
+        public void setUp() {
+            entityClass = query.contains("cost") ? Contract.class : Client.class;
+            SpecificationUtils.warmUp(entityClass);
+            SpecificationUtils.buildSpecificationFromQuery(query, entityClass);
+        }
+    }
+
+    /**
+     * Builder holding the given number of criteria, one in three or'ed
+     */
+    @State(Scope.Benchmark)
+    public static class Criteria {
+
+        @Param({"4", "16"})
+        private int count;
+
+        private GenericSpecificationsBuilder<Contract> builder;
+
+        @Setup
+        public void setUp() {
+            builder = new GenericSpecificationsBuilder<>(Contract.class);
+            for (int i = 0; i < count; i++) {
+                builder.with(i % 3 == 0 ? SearchOperation.OR_PREDICATE_FLAG : null, "cost", ">", String.valueOf(i * 100), null, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.vaudoise.vaudoiseback.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load on {@code GET /contracts/{id}} against a running instance, to compare the request execution
+ * models. Every JMH thread is a client that sends its next request as soon as the previous one is answered, so the
+ * client count is the concurrency the server sees.
+ * <p>
+ * Run it once against the defaults (virtual threads, Hikari 40, 80 permits) and once against the Tomcat platform
+ * pool, both with the per-user rate limit off as every client shares one user:
+ * <pre>
+ * java -jar target/vaudoise-0.0.1-SNAPSHOT.jar --vaudoise.rate-limit.enabled=false
+ * java -jar target/vaudoise-0.0.1-SNAPSHOT.jar --vaudoise.rate-limit.enabled=false \
+ *      --spring.threads.virtual.enabled=false --server.tomcat.threads.max=200 \
+ *      --spring.datasource.hikari.maximum-pool-size=10 --spring.datasource.hikari.minimum-idle=10
+ * mvn -Pbenchmarks test-compile exec:exec@load [-Dload.clients=200,800]
+ * </pre>
+ * Requests shed by the concurrency limiter (503) are answered at once and counted apart, as they would otherwise
+ * inflate the throughput. Adding latency between the application and MariaDB (a TCP proxy) shows the blocking
+ * behaviour; on a local database both models are CPU bound.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContractReadLoadBenchmark {
+
+    @Param("http://localhost:8080/api/api/v1")
+    public String baseUrl;
+
+    @Param("1")
+    public long contractId;
+
+    @Param("vaudoise_user")
+    public String user;
+
+    @Param("vaudoise_pass")
+    public String password;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private HttpClient client;
+    private HttpRequest request;
+
+    /**
+     * Runs the benchmark once per client count of the {@code load.clients} property.
+     */
+    public static void main(String[] args) throws RunnerException {
+        for (String clients : System.getProperty("load.clients", "200,800").split(",")) {
+            new Runner(new OptionsBuilder()
+                    .include(ContractReadLoadBenchmark.class.getSimpleName())
+                    .threads(Integer.parseInt(clients.trim()))
+                    .build())
+                    .run();
+        }
+    }
+
+    /**
+     * Exchanges the credentials for a bearer token once, so that BCrypt does not take part in the measure.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String credentials = Base64.getEncoder().encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+        HttpResponse<String> token = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/auth/token"))
+                        .header("Authorization", "Basic " + credentials)
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (token.statusCode() != 200) {
+            throw new IllegalStateException("Token request failed with status " + token.statusCode() + ": " + token.body());
+        }
+        JsonNode body = new ObjectMapper().readTree(token.body());
+        request = HttpRequest.newBuilder(URI.create(baseUrl + "/contracts/" + contractId))
+                .header("Authorization", "Bearer " + body.get("accessToken").asText())
+                .header("Accept", "application/json")
+                .timeout(Duration.ofMinutes(2))
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long shed = rejected.sumThenReset();
+        long total = completed.sumThenReset() + shed;
+        System.out.printf("%nRequests shed with 503: %d of %d (%.1f%%)%n", shed, total, total == 0 ? 0.0 : 100.0 * shed / total);
+    }
+
+    @Benchmark
+    public int readContract() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        switch (response.statusCode()) {
+            case 200 -> completed.increment();
+            case 503 -> rejected.increment();
+            default -> throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
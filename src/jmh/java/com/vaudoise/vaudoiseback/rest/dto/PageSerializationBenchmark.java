@@ -0,0 +1,88 @@
+package com.vaudoise.vaudoiseback.rest.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a page of contracts as the list endpoints write it (PagedModel, see WebConfig), in JSON with and
+ * without the Blackbird module registered by JacksonConfig, and in Smile
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private PagedModel<ContractResponse> page;
+    private ObjectMapper json;
+    private ObjectMapper blackbird;
+    private ObjectMapper smile;
+
+    @Setup
+    public void setUp() {
+        List<ContractResponse> contracts = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            contracts.add(new ContractResponse((long) i, UUID.randomUUID(), LocalDate.of(2024, 1, 1).plusDays(i),
+                    i % 2 == 0 ? null : LocalDate.of(2030, 1, 1), BigDecimal.valueOf(1000 + i * 7L, 2),
+                    (long) (i % 10), "Client " + (i % 10)));
+        }
+        page = new PagedModel<>(new PageImpl<>(contracts, PageRequest.of(0, pageSize), 10_000));
+
+        json = mapper().build();
+        blackbird = mapper().modulesToInstall(new BlackbirdModule()).build();
+        smile = mapper().modulesToInstall(new BlackbirdModule()).factory(new SmileFactory()).build();
+    }
+
+    @Benchmark
+    public byte[] json() throws JsonProcessingException {
+        return json.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] jsonBlackbird() throws JsonProcessingException {
+        return blackbird.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] smileBlackbird() throws JsonProcessingException {
+        return smile.writeValueAsBytes(page);
+    }
+
+    /**
+     * Same settings as the mapper Spring Boot configures for the application
+     */
+    private static Jackson2ObjectMapperBuilder mapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+}
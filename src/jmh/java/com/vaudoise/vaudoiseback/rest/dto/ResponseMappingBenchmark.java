@@ -0,0 +1,108 @@
+package com.vaudoise.vaudoiseback.rest.dto;
+
+import com.vaudoise.vaudoiseback.persistence.entities.Client;
+import com.vaudoise.vaudoiseback.persistence.entities.CompanyClient;
+import com.vaudoise.vaudoiseback.persistence.entities.Contract;
+import com.vaudoise.vaudoiseback.persistence.entities.PersonClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to response mapping of the read paths, for one entity and for a page of contracts
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseMappingBenchmark {
+
+    private PersonClient person;
+    private CompanyClient company;
+    private Contract contract;
+
+    @Setup
+    public void setUp() {
+        person = new PersonClient();
+        person.setId(1L);
+        person.setName("John Doe");
+        person.setEmail("john.doe@example.com");
+        person.setPhone("+41211234567");
+        person.setBirthDate(LocalDate.of(1980, 1, 1));
+
+        company = new CompanyClient();
+        company.setId(2L);
+        company.setName("Acme Corp");
+        company.setEmail("contact@acme.com");
+        company.setPhone("+41217654321");
+        company.setCompanyId("ACME-123");
+
+        contract = contract(1, person);
+    }
+
+    @Benchmark
+    public ClientResponse personClient() {
+        return new ClientResponse(person);
+    }
+
+    @Benchmark
+    public ClientResponse companyClient() {
+        return new ClientResponse(company);
+    }
+
+    @Benchmark
+    public ContractResponse contract() {
+        return new ContractResponse(contract);
+    }
+
+    @Benchmark
+    public List<ContractResponse> contractPage(Page page) {
+        return page.contracts.stream().map(ContractResponse::new).toList();
+    }
+
+    private static Contract contract(int i, Client client) {
+        Contract contract = new Contract();
+        contract.setId((long) i);
+        contract.setStartDate(LocalDate.of(2024, 1, 1).plusDays(i));
+        contract.setEndDate(i % 2 == 0 ? null : LocalDate.of(2030, 1, 1));
+        contract.setCost(BigDecimal.valueOf(1000 + i * 7L, 2));
+        contract.setClient(client);
+        return contract;
+    }
+
+    /**
+     * Contracts of one page, alternately of the person and of the company
+     */
+    @State(Scope.Benchmark)
+    public static class Page {
+
+        @Param({"20", "100"})
+        private int size;
+
+        private List<Contract> contracts;
+
+        @Setup
+        public void setUp(ResponseMappingBenchmark benchmark) {
+            contracts = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                contracts.add(contract(i, i % 2 == 0 ? benchmark.person : benchmark.company));
+            }
+        }
+    }
+}
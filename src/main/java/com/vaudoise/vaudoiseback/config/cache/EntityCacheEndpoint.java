@@ -0,0 +1,67 @@
+package com.vaudoise.vaudoiseback.config.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint exposing the hit and miss counters of the second-level cache regions.
+ * Reading it is {@code GET /actuator/entitycache}, emptying every region is {@code DELETE /actuator/entitycache},
+ * e.g. after changing data directly in the database.
+ */
+@Component
+@Endpoint(id = "entitycache")
+@Slf4j
+public class EntityCacheEndpoint {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public EntityCacheEndpoint(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String name : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(name);
+            Map<String, Object> counters = new LinkedHashMap<>();
+            counters.put("hits", region.getHitCount());
+            counters.put("misses", region.getMissCount());
+            counters.put("puts", region.getPutCount());
+            counters.put("hitRatio", ratio(region.getHitCount(), region.getMissCount()));
+            regions.put(name, counters);
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        body.put("hits", statistics.getSecondLevelCacheHitCount());
+        body.put("misses", statistics.getSecondLevelCacheMissCount());
+        body.put("puts", statistics.getSecondLevelCachePutCount());
+        body.put("hitRatio", ratio(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount()));
+        body.put("regions", regions);
+        return body;
+    }
+
+    @DeleteOperation
+    public void evictAll() {
+        entityManagerFactory.getCache().evictAll();
+        log.info("Second-level cache evicted");
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,28 @@
+package com.vaudoise.vaudoiseback.config.logging;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint exposing the p50, p99 and p99.9 latency of every route, as recorded by
+ * {@link RequestLoggingFilter}. Reading it is {@code GET /actuator/latency}; the same timers, the Hikari pool and the
+ * Hibernate statistics are available as meters on {@code /actuator/metrics}.
+ */
+@Component
+@Endpoint(id = "latency")
+public class LatencyEndpoint {
+
+    private final RequestLoggingFilter requestLoggingFilter;
+
+    public LatencyEndpoint(RequestLoggingFilter requestLoggingFilter) {
+        this.requestLoggingFilter = requestLoggingFilter;
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        return requestLoggingFilter.statistics();
+    }
+}
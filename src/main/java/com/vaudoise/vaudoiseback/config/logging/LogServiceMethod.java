@@ -5,7 +5,11 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
-@Target(ElementType.METHOD)
+/**
+ * Times the annotated service method, or every public method of the annotated service, see
+ * {@link ServiceMethodAspect}. Only calls going through the Spring proxy are timed, not calls from the same bean.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface LogServiceMethod {
 }
@@ -1,28 +1,146 @@
 package com.vaudoise.vaudoiseback.config.logging;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Records the latency of every request in a histogram per route template, and logs a sample of them.
+ * <p>
+ * Routes are the mapping patterns ({@code /api/v1/clients/{clientId}}), not the raw URIs, so the number of
+ * histograms stays bounded. Slow and failed requests are always logged; the others only at the sample rate, or all
+ * of them with DEBUG enabled for this class.
+ * <p>
+ * The SQL statements run by each request are counted as well, per route, and requests running more than
+ * {@code vaudoise.request-log.max-queries} statements are logged as a likely N+1 select.
+ */
 @Component
 @Slf4j
 public class RequestLoggingFilter extends OncePerRequestFilter {
 
+    public static final String LATENCY_METER = "vaudoise.http.latency";
+    public static final String QUERIES_METER = "vaudoise.http.queries";
+
+    private static final String UNKNOWN_ROUTE = "UNKNOWN";
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p999"};
+
+    private final MeterRegistry meterRegistry;
+    private final SqlStatementLog sqlStatementLog;
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+    private final int maxQueries;
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+    public RequestLoggingFilter(MeterRegistry meterRegistry,
+                                SqlStatementLog sqlStatementLog,
+                                @Value("${vaudoise.request-log.slow-threshold:500ms}") Duration slowThreshold,
+                                @Value("${vaudoise.request-log.sample-rate:0.01}") double sampleRate,
+                                @Value("${vaudoise.request-log.max-queries:10}") int maxQueries) {
+        this.meterRegistry = meterRegistry;
+        this.sqlStatementLog = sqlStatementLog;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.sampleRate = sampleRate;
+        this.maxQueries = maxQueries;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
+        sqlStatementLog.beginRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long duration = System.nanoTime() - start;
+            int queries = sqlStatementLog.endRequest();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            Route route = route(request.getMethod(), pattern != null ? pattern.toString() : UNKNOWN_ROUTE);
+            route.latency.record(duration, TimeUnit.NANOSECONDS);
+            route.queries.record(queries);
+
+            if (queries > maxQueries) {
+                log.warn("{} {} -> {} ({} ms) ran {} SQL statements, more than {}: N+1 select?", request.getMethod(),
+                        request.getRequestURI(), response.getStatus(), TimeUnit.NANOSECONDS.toMillis(duration), queries, maxQueries);
+            } else if (duration >= slowThresholdNanos || response.getStatus() >= 500) {
+                log.info("{} {} -> {} ({} ms, {} statements)", request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        TimeUnit.NANOSECONDS.toMillis(duration), queries);
+            } else if (log.isDebugEnabled()) {
+                log.debug("{} {} -> {} ({} ms, {} statements)", request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        TimeUnit.NANOSECONDS.toMillis(duration), queries);
+            } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                log.info("{} {} -> {} ({} ms, {} statements, sampled)", request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        TimeUnit.NANOSECONDS.toMillis(duration), queries);
+            }
+        }
+    }
+
+    /**
+     * Latency of every route seen, read by the latency actuator endpoint: count, mean, max and percentiles in
+     * milliseconds over the last minutes, and the mean and max number of SQL statements per request
+     */
+    public Map<String, Object> statistics() {
+        Map<String, Object> statistics = new TreeMap<>();
+        routes.forEach((key, route) -> {
+            HistogramSnapshot snapshot = route.latency.takeSnapshot();
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("count", snapshot.count());
+            latency.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+            latency.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+            ValueAtPercentile[] values = snapshot.percentileValues();
+            for (int i = 0; i < values.length && i < PERCENTILE_NAMES.length; i++) {
+                latency.put(PERCENTILE_NAMES[i], values[i].value(TimeUnit.MILLISECONDS));
+            }
+            latency.put("statementsMean", route.queries.mean());
+            latency.put("statementsMax", route.queries.max());
+            statistics.put(key, latency);
+        });
+        return statistics;
+    }
+
+    private Route route(String method, String route) {
+        return routes.computeIfAbsent(method + " " + route, key -> new Route(
+                Timer.builder(LATENCY_METER)
+                        .description("Request latency per route template")
+                        .tag("method", method)
+                        .tag("route", route)
+                        .publishPercentiles(PERCENTILES)
+                        .register(meterRegistry),
+                DistributionSummary.builder(QUERIES_METER)
+                        .description("SQL statements per request, per route template")
+                        .tag("method", method)
+                        .tag("route", route)
+                        .register(meterRegistry)));
+    }
 
-        filterChain.doFilter(request, response);
+    private static final class Route {
+        private final Timer latency;
+        private final DistributionSummary queries;
 
-        long duration = System.currentTimeMillis() - start;
-        log.info("{} {} -> {} ({} ms)", request.getMethod(), request.getRequestURI(), response.getStatus(), duration);
+        private Route(Timer latency, DistributionSummary queries) {
+            this.latency = latency;
+            this.queries = queries;
+        }
     }
-}
\ No newline at end of file
+}
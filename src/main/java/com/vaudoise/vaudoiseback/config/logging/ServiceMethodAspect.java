@@ -0,0 +1,125 @@
+package com.vaudoise.vaudoiseback.config.logging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Behind {@link LogServiceMethod}: counts the calls and errors of every service method and records their latency,
+ * to find the service hot spots in production without a profiler.
+ * <p>
+ * Recording is two {@link System#nanoTime()} reads and a few striped counter increments. Calls are logged at the
+ * sample rate only, or all of them with DEBUG enabled for this class; their arguments are left out unless
+ * {@code vaudoise.service-log.arguments} is set, as they may carry personal data. The aspect wraps the transaction,
+ * so that the commit is part of the time measured.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class ServiceMethodAspect {
+
+    private static final int MAX_ARGUMENTS_LENGTH = 500;
+
+    private final boolean logArguments;
+    private final double sampleRate;
+    private final Map<Class<?>, Map<Method, ServiceMethodStats>> stats = new ConcurrentHashMap<>();
+
+    public ServiceMethodAspect(@Value("${vaudoise.service-log.arguments:false}") boolean logArguments,
+                               @Value("${vaudoise.service-log.sample-rate:0.001}") double sampleRate) {
+        this.logArguments = logArguments;
+        this.sampleRate = sampleRate;
+    }
+
+    @Around("execution(public * *(..)) && (@within(com.vaudoise.vaudoiseback.config.logging.LogServiceMethod) " +
+            "|| @annotation(com.vaudoise.vaudoiseback.config.logging.LogServiceMethod))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            long duration = System.nanoTime() - start;
+            ServiceMethodStats methodStats = stats(joinPoint);
+            methodStats.record(duration, failed);
+            if (log.isDebugEnabled() || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+                log(joinPoint, methodStats.getName(), duration, failed);
+            }
+        }
+    }
+
+    /**
+     * Service methods ordered from the slowest, by 99th percentile, mean or total time
+     *
+     * @param top number of methods to return
+     * @param by  p99, mean or total
+     */
+    public List<Map<String, Object>> slowest(int top, String by) {
+        Comparator<ServiceMethodStats> order = switch (by == null ? "p99" : by) {
+            case "total" -> Comparator.comparingLong(ServiceMethodStats::totalNanos);
+            case "mean" -> Comparator.comparingDouble(s -> s.calls() == 0 ? 0 : (double) s.totalNanos() / s.calls());
+            default -> Comparator.comparingLong(s -> s.percentileNanos(0.99));
+        };
+        return stats.values().stream()
+                .flatMap(methods -> methods.values().stream())
+                .filter(s -> s.calls() > 0)
+                .sorted(order.reversed())
+                .limit(Math.max(top, 0))
+                .map(s -> {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("method", s.getName());
+                    entry.putAll(s.toMap());
+                    return entry;
+                })
+                .toList();
+    }
+
+    public void reset() {
+        stats.values().forEach(methods -> methods.values().forEach(ServiceMethodStats::reset));
+    }
+
+    private ServiceMethodStats stats(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Class<?> targetClass = joinPoint.getTarget() != null ? joinPoint.getTarget().getClass() : method.getDeclaringClass();
+        return stats.computeIfAbsent(targetClass, c -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method, m -> new ServiceMethodStats(name(targetClass, m)));
+    }
+
+    private void log(ProceedingJoinPoint joinPoint, String name, long duration, boolean failed) {
+        String arguments = "...";
+        if (logArguments) {
+            arguments = Arrays.deepToString(joinPoint.getArgs());
+            if (arguments.length() > MAX_ARGUMENTS_LENGTH) {
+                arguments = arguments.substring(0, MAX_ARGUMENTS_LENGTH) + "...";
+            }
+        }
+        log.info("{} [{}] {} in {} µs", name, arguments, failed ? "failed" : "returned",
+                TimeUnit.NANOSECONDS.toMicros(duration));
+    }
+
+    private static String name(Class<?> targetClass, Method method) {
+        String parameters = Arrays.stream(method.getParameterTypes())
+                .map(Class::getSimpleName)
+                .reduce((a, b) -> a + ", " + b)
+                .orElse("");
+        return targetClass.getSimpleName() + "." + method.getName() + "(" + parameters + ")";
+    }
+}
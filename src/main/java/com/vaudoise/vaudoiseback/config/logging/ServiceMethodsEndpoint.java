@@ -0,0 +1,41 @@
+package com.vaudoise.vaudoiseback.config.logging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint listing the slowest service methods timed by {@link ServiceMethodAspect}.
+ * Reading it is {@code GET /actuator/servicemethods?top=10&by=p99} (by p99, mean or total time), resetting the
+ * counters is {@code DELETE /actuator/servicemethods}.
+ */
+@Component
+@Endpoint(id = "servicemethods")
+@Slf4j
+public class ServiceMethodsEndpoint {
+
+    private static final int DEFAULT_TOP = 10;
+
+    private final ServiceMethodAspect serviceMethodAspect;
+
+    public ServiceMethodsEndpoint(ServiceMethodAspect serviceMethodAspect) {
+        this.serviceMethodAspect = serviceMethodAspect;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> slowest(@Nullable Integer top, @Nullable String by) {
+        return serviceMethodAspect.slowest(top == null ? DEFAULT_TOP : top, by);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        serviceMethodAspect.reset();
+        log.info("Service method statistics reset");
+    }
+}
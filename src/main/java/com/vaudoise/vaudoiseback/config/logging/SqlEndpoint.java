@@ -0,0 +1,40 @@
+package com.vaudoise.vaudoiseback.config.logging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint listing the slowest normalized SQL queries and the last slow statements, see
+ * {@link SqlStatementLog}. Reading it is {@code GET /actuator/sql?top=20&by=max} (by max, mean or total time),
+ * resetting the counters is {@code DELETE /actuator/sql}.
+ */
+@Component
+@Endpoint(id = "sql")
+@Slf4j
+public class SqlEndpoint {
+
+    private static final int DEFAULT_TOP = 20;
+
+    private final SqlStatementLog sqlStatementLog;
+
+    public SqlEndpoint(SqlStatementLog sqlStatementLog) {
+        this.sqlStatementLog = sqlStatementLog;
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics(@Nullable Integer top, @Nullable String by) {
+        return sqlStatementLog.statistics(top == null ? DEFAULT_TOP : top, by);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        sqlStatementLog.reset();
+        log.info("SQL statistics reset");
+    }
+}
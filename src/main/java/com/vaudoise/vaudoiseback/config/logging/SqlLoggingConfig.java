@@ -0,0 +1,31 @@
+package com.vaudoise.vaudoiseback.config.logging;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts the data source behind {@link StatementTimingDataSource}, so that every statement is timed by
+ * {@link SqlStatementLog}. Disabled with {@code vaudoise.sql.statistics.enabled=false}.
+ */
+@Configuration
+public class SqlLoggingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "vaudoise.sql.statistics.enabled", havingValue = "true", matchIfMissing = true)
+    public static BeanPostProcessor statementTimingPostProcessor(ObjectProvider<SqlStatementLog> sqlStatementLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementTimingDataSource)) {
+                    return new StatementTimingDataSource(dataSource, sqlStatementLog.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
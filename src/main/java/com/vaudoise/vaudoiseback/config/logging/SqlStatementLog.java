@@ -0,0 +1,215 @@
+package com.vaudoise.vaudoiseback.config.logging;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Timings of the SQL statements executed through {@link StatementTimingDataSource}, whether sent by Hibernate or by
+ * a JdbcTemplate.
+ * <p>
+ * Statements are grouped by normalized SQL, literals and IN lists replaced by placeholders, to list the slowest
+ * queries. Statements slower than {@code vaudoise.sql.slow-threshold} are logged with the types of their bound
+ * parameters, never their values, and kept in a ring buffer of the last ones. The statements of the current HTTP
+ * request are counted, see {@link RequestLoggingFilter}, to spot N+1 selects.
+ */
+@Component
+@Slf4j
+public class SqlStatementLog {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_SQL_LENGTH = 2000;
+
+    private static final ThreadLocal<RequestQueries> REQUEST = new ThreadLocal<>();
+
+    private final long slowThresholdNanos;
+    private final Cache<String, String> normalized;
+    private final Cache<String, QueryStats> queries;
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder slowStatements = new LongAdder();
+    private final AtomicReferenceArray<SlowStatement> recentSlow;
+    private final AtomicLong recentSlowIndex = new AtomicLong();
+
+    public SqlStatementLog(@Value("${vaudoise.sql.slow-threshold:100ms}") Duration slowThreshold,
+                           @Value("${vaudoise.sql.recent-slow-size:100}") int recentSlowSize,
+                           @Value("${vaudoise.sql.max-queries:1000}") long maxQueries) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.recentSlow = new AtomicReferenceArray<>(Math.max(1, recentSlowSize));
+        this.normalized = Caffeine.newBuilder().maximumSize(maxQueries * 4).build();
+        this.queries = Caffeine.newBuilder().maximumSize(maxQueries).build();
+    }
+
+    /**
+     * Start counting the statements of the request handled by the current thread
+     */
+    public void beginRequest() {
+        REQUEST.set(new RequestQueries());
+    }
+
+    /**
+     * Stop counting the statements of the current request
+     *
+     * @return the number of statements executed since {@link #beginRequest()}, 0 when not counting
+     */
+    public int endRequest() {
+        RequestQueries current = REQUEST.get();
+        REQUEST.remove();
+        return current == null ? 0 : current.count;
+    }
+
+    void record(String sql, long nanos, Object parameters, int batchSize) {
+        statements.increment();
+        RequestQueries current = REQUEST.get();
+        if (current != null) {
+            current.count++;
+        }
+        if (sql == null) {
+            return;
+        }
+        String query = normalized.get(sql, SqlStatementLog::normalize);
+        queries.get(query, QueryStats::new).record(nanos);
+
+        if (nanos >= slowThresholdNanos) {
+            slowStatements.increment();
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            log.warn("Slow SQL ({} ms{}): {} parameters {}", millis, batchSize > 1 ? ", batch of " + batchSize : "",
+                    query, parameters);
+            int slot = (int) (recentSlowIndex.getAndIncrement() % recentSlow.length());
+            recentSlow.set(slot, new SlowStatement(Instant.now(), millis, query, String.valueOf(parameters), batchSize));
+        }
+    }
+
+    /**
+     * Counters, the slowest normalized queries and the last slow statements, read by the sql actuator endpoint
+     *
+     * @param top number of queries to list
+     * @param by  max, mean or total
+     */
+    public Map<String, Object> statistics(int top, String by) {
+        Comparator<QueryStats> order = switch (by == null ? "max" : by) {
+            case "total" -> Comparator.comparingLong(s -> s.totalNanos.sum());
+            case "mean" -> Comparator.comparingDouble(QueryStats::meanNanos);
+            default -> Comparator.comparingLong(s -> s.maxNanos.get());
+        };
+        List<Map<String, Object>> slowest = queries.asMap().values().stream()
+                .sorted(order.reversed())
+                .limit(Math.max(top, 0))
+                .map(QueryStats::toMap)
+                .toList();
+
+        List<SlowStatement> recent = new ArrayList<>();
+        for (int i = 0; i < recentSlow.length(); i++) {
+            SlowStatement statement = recentSlow.get(i);
+            if (statement != null) {
+                recent.add(statement);
+            }
+        }
+        recent.sort(Comparator.comparing((SlowStatement s) -> s.at).reversed());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("slowThresholdMs", TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos));
+        body.put("statements", statements.sum());
+        body.put("slowStatements", slowStatements.sum());
+        body.put("slowest", slowest);
+        body.put("recentSlow", recent.stream().map(SlowStatement::toMap).toList());
+        return body;
+    }
+
+    public void reset() {
+        statements.reset();
+        slowStatements.reset();
+        queries.invalidateAll();
+        for (int i = 0; i < recentSlow.length(); i++) {
+            recentSlow.set(i, null);
+        }
+    }
+
+    static String normalize(String sql) {
+        String query = STRING_LITERAL.matcher(sql).replaceAll("?");
+        query = NUMBER_LITERAL.matcher(query).replaceAll("?");
+        query = IN_LIST.matcher(query).replaceAll("in (?...)");
+        query = WHITESPACE.matcher(query).replaceAll(" ").trim();
+        return query.length() > MAX_SQL_LENGTH ? query.substring(0, MAX_SQL_LENGTH) + "..." : query;
+    }
+
+    private static final class RequestQueries {
+        private int count;
+    }
+
+    private static final class QueryStats {
+        private final String query;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private QueryStats(String query) {
+            this.query = query;
+        }
+
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        private double meanNanos() {
+            long calls = count.sum();
+            return calls == 0 ? 0 : (double) totalNanos.sum() / calls;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("query", query);
+            stats.put("count", count.sum());
+            stats.put("totalMs", totalNanos.sum() / 1_000_000.0);
+            stats.put("meanMs", meanNanos() / 1_000_000.0);
+            stats.put("maxMs", maxNanos.get() / 1_000_000.0);
+            return stats;
+        }
+    }
+
+    private static final class SlowStatement {
+        private final Instant at;
+        private final long millis;
+        private final String query;
+        private final String parameters;
+        private final int batchSize;
+
+        private SlowStatement(Instant at, long millis, String query, String parameters, int batchSize) {
+            this.at = at;
+            this.millis = millis;
+            this.query = query;
+            this.parameters = parameters;
+            this.batchSize = batchSize;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> statement = new LinkedHashMap<>();
+            statement.put("at", at.toString());
+            statement.put("ms", millis);
+            statement.put("query", query);
+            statement.put("parameters", parameters);
+            statement.put("batchSize", batchSize);
+            return statement;
+        }
+    }
+}
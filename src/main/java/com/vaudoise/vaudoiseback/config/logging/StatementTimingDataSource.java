@@ -0,0 +1,177 @@
+package com.vaudoise.vaudoiseback.config.logging;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Data source handing out connections whose statements report their execution time to {@link SqlStatementLog}.
+ * <p>
+ * It sits at the JDBC level rather than in a Hibernate StatementInspector, which only sees the SQL before it is
+ * prepared and never how long it ran, and which would miss the JdbcTemplate statements. Only the execute calls are
+ * timed, reading the result set is not. Bound parameters are recorded by type, and by length for strings.
+ */
+public class StatementTimingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private static final Set<String> PREPARE_METHODS = Set.of("prepareStatement", "prepareCall");
+
+    private final SqlStatementLog sqlStatementLog;
+
+    public StatementTimingDataSource(DataSource targetDataSource, SqlStatementLog sqlStatementLog) {
+        super(targetDataSource);
+        this.sqlStatementLog = sqlStatementLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection connection(Connection target) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    Object result = invoke(target, method, args);
+                    if (result instanceof Statement statement) {
+                        String sql = PREPARE_METHODS.contains(method.getName()) && args != null && args.length > 0
+                                ? (String) args[0] : null;
+                        return statement(statement, sql);
+                    }
+                    return result;
+                });
+    }
+
+    private Statement statement(Statement target, String preparedSql) {
+        Class<?> type = target instanceof CallableStatement ? CallableStatement.class
+                : target instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                new StatementHandler(target, preparedSql));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String preparedSql;
+        private final ParameterShapes parameters = new ParameterShapes();
+        private String batchSql;
+        private int batchSize;
+
+        private StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (EXECUTE_METHODS.contains(name)) {
+                boolean batch = name.endsWith("Batch");
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s
+                        : batch && batchSql != null ? batchSql : preparedSql;
+                long start = System.nanoTime();
+                try {
+                    return StatementTimingDataSource.invoke(target, method, args);
+                } finally {
+                    sqlStatementLog.record(sql, System.nanoTime() - start, parameters, batch ? batchSize : 1);
+                    if (batch) {
+                        batchSize = 0;
+                    }
+                }
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.set(index, name, args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+                if (args != null && args.length == 1 && args[0] instanceof String s) {
+                    batchSql = s;
+                }
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            }
+            return StatementTimingDataSource.invoke(target, method, args);
+        }
+    }
+
+    /**
+     * Types of the parameters bound to a statement, e.g. {@code [Long, String(12), null]}
+     */
+    private static final class ParameterShapes {
+
+        private String[] types = new String[0];
+        private int[] lengths = new int[0];
+
+        private void set(int index, String setter, Object value) {
+            if (index < 1) {
+                return;
+            }
+            if (index > types.length) {
+                types = Arrays.copyOf(types, Math.max(index, types.length * 2));
+                lengths = Arrays.copyOf(lengths, types.length);
+            }
+            String type;
+            if (setter.equals("setNull") || value == null) {
+                type = "null";
+            } else if (setter.equals("setObject")) {
+                type = value.getClass().getSimpleName();
+            } else {
+                type = setter.substring(3);
+            }
+            types[index - 1] = type;
+            lengths[index - 1] = value instanceof CharSequence chars ? chars.length() : -1;
+        }
+
+        private void clear() {
+            Arrays.fill(types, null);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder shape = new StringBuilder("[");
+            for (int i = 0; i < types.length && types[i] != null; i++) {
+                if (i > 0) {
+                    shape.append(", ");
+                }
+                shape.append(types[i]);
+                if (lengths[i] >= 0) {
+                    shape.append('(').append(lengths[i]).append(')');
+                }
+            }
+            return shape.append(']').toString();
+        }
+    }
+}
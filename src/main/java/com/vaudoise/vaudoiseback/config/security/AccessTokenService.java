@@ -0,0 +1,61 @@
+package com.vaudoise.vaudoiseback.config.security;
+
+import com.vaudoise.vaudoiseback.rest.dto.TokenResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Issues the bearer tokens exchanged against user name and password
+ */
+@Service
+public class AccessTokenService {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final JwtEncoder jwtEncoder;
+    private final Duration timeToLive;
+
+    public AccessTokenService(JwtEncoder jwtEncoder,
+                              @Value("${vaudoise.auth.token.ttl:15m}") Duration timeToLive) {
+        this.jwtEncoder = jwtEncoder;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Sign a token for the authenticated user, carrying its roles and expiring after the configured time to live
+     *
+     * @param authentication user authenticated with its credentials
+     * @return the token and its expiry
+     */
+    public TokenResponse issue(Authentication authentication) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(timeToLive);
+        List<String> roles = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority.startsWith(ROLE_PREFIX))
+                .map(authority -> authority.substring(ROLE_PREFIX.length()))
+                .toList();
+
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(TokenConfig.ISSUER)
+                .subject(authentication.getName())
+                .issuedAt(now)
+                .expiresAt(expiresAt)
+                .claim(TokenConfig.ROLES_CLAIM, roles)
+                .build();
+        JwsHeader header = JwsHeader.with(TokenConfig.ALGORITHM).build();
+        String token = jwtEncoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue();
+
+        return new TokenResponse(token, "Bearer", timeToLive.toSeconds(), expiresAt, roles);
+    }
+}
@@ -0,0 +1,84 @@
+package com.vaudoise.vaudoiseback.config.security;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Signing and verification of the bearer tokens issued by {@link AccessTokenService}.
+ * <p>
+ * Tokens are JWT signed with HMAC-SHA256: checking one is a hash over a few hundred bytes, where a BCrypt check of
+ * HTTP Basic credentials costs tens of milliseconds of CPU. The secret is shared by every instance behind the
+ * load balancer; when none is configured a random one is generated, and tokens only stay valid until the restart.
+ */
+@Configuration
+@Slf4j
+public class TokenConfig {
+
+    public static final String ISSUER = "vaudoise";
+    public static final String ROLES_CLAIM = "roles";
+    public static final MacAlgorithm ALGORITHM = MacAlgorithm.HS256;
+
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private final SecretKey key;
+
+    public TokenConfig(@Value("${vaudoise.auth.token.secret:}") String secret) {
+        byte[] bytes;
+        if (secret == null || secret.isBlank()) {
+            log.warn("No vaudoise.auth.token.secret configured, tokens are signed with a random key and will not survive a restart");
+            bytes = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(bytes);
+        } else {
+            bytes = Base64.getDecoder().decode(secret.trim());
+            if (bytes.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("vaudoise.auth.token.secret must hold at least " + MIN_SECRET_BYTES + " bytes");
+            }
+        }
+        this.key = new SecretKeySpec(bytes, "HmacSHA256");
+    }
+
+    @Bean
+    public JwtEncoder jwtEncoder() {
+        return new NimbusJwtEncoder(new ImmutableSecret<>(key));
+    }
+
+    @Bean
+    public JwtDecoder jwtDecoder() {
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(key)
+                .macAlgorithm(ALGORITHM)
+                .build();
+        // Expiry (with the default clock skew) and issuer
+        decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(JwtValidators.createDefaultWithIssuer(ISSUER)));
+        return decoder;
+    }
+
+    /**
+     * Turns the roles claim back into the ROLE_ authorities the user had when the token was issued
+     */
+    @Bean
+    public JwtAuthenticationConverter jwtAuthenticationConverter() {
+        JwtGrantedAuthoritiesConverter authorities = new JwtGrantedAuthoritiesConverter();
+        authorities.setAuthoritiesClaimName(ROLES_CLAIM);
+        authorities.setAuthorityPrefix("ROLE_");
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(authorities);
+        return converter;
+    }
+}
@@ -0,0 +1,73 @@
+package com.vaudoise.vaudoiseback.config.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the number of requests in flight when they run on virtual threads.
+ * <p>
+ * On platform threads the Tomcat pool caps the concurrency. Virtual threads lift that cap, and a burst would pile
+ * up thousands of requests in front of the connection pool, each one failing after the pool timeout once it has
+ * already taken memory and CPU. Requests above the limit wait for a permit in arrival order, and are rejected with
+ * a 503 when none frees up in time.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+    private final ObjectMapper objectMapper;
+
+    public ConcurrencyLimitFilter(@Value("${vaudoise.concurrency.max-requests:80}") int maxRequests,
+                                  @Value("${vaudoise.concurrency.acquire-timeout:5s}") Duration acquireTimeout,
+                                  ObjectMapper objectMapper) {
+        this.permits = new Semaphore(maxRequests, true);
+        this.acquireTimeout = acquireTimeout;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            log.warn("{} {} rejected, no request permit freed up within {} ms",
+                    request.getMethod(), request.getRequestURI(), acquireTimeout.toMillis());
+            FilterErrors.write(response, objectMapper, HttpStatus.SERVICE_UNAVAILABLE, ErrorEnum.SERVER_BUSY, 1);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
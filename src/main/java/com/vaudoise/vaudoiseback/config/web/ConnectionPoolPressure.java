@@ -0,0 +1,98 @@
+package com.vaudoise.vaudoiseback.config.web;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Average time requests waited for a JDBC connection over the last sampling interval, from the Hikari acquire timer.
+ * <p>
+ * The pool is overloaded while that average is above {@code vaudoise.rate-limit.shed-threshold}: a few more
+ * requests only lengthen the queue in front of the pool, so {@link RateLimitFilter} refuses the sheddable ones.
+ */
+@Component
+@Slf4j
+public class ConnectionPoolPressure {
+
+    private static final String ACQUIRE_TIMER = "hikaricp.connections.acquire";
+
+    private final MeterRegistry meterRegistry;
+    private final DataSource dataSource;
+    private final long thresholdNanos;
+
+    private long lastCount;
+    private double lastTotalNanos;
+
+    /**
+     * Average connection wait of the last interval, in nanoseconds
+     */
+    @Getter
+    private volatile long recentWaitNanos;
+
+    @Getter
+    private volatile boolean overloaded;
+
+    public ConnectionPoolPressure(MeterRegistry meterRegistry,
+                                  DataSource dataSource,
+                                  @Value("${vaudoise.rate-limit.shed-threshold:200ms}") Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.dataSource = dataSource;
+        this.thresholdNanos = threshold.toNanos();
+    }
+
+    @Scheduled(fixedDelayString = "${vaudoise.rate-limit.sample-interval:500ms}")
+    public void sample() {
+        long count = 0;
+        double totalNanos = 0;
+        for (Timer timer : meterRegistry.find(ACQUIRE_TIMER).timers()) {
+            count += timer.count();
+            totalNanos += timer.totalTime(TimeUnit.NANOSECONDS);
+        }
+        long acquired = count - lastCount;
+        double waited = totalNanos - lastTotalNanos;
+        lastCount = count;
+        lastTotalNanos = totalNanos;
+
+        if (acquired > 0) {
+            recentWaitNanos = (long) (waited / acquired);
+        } else if (threadsAwaiting() <= 0) {
+            recentWaitNanos = 0;
+        }
+        // No connection handed out but requests still waiting: the pool is stuck, keep the previous verdict
+        boolean nowOverloaded = recentWaitNanos >= thresholdNanos;
+        if (nowOverloaded != overloaded) {
+            log.warn("Connection pool {}: average wait {} ms over the last interval",
+                    nowOverloaded ? "overloaded, shedding requests" : "recovered",
+                    TimeUnit.NANOSECONDS.toMillis(recentWaitNanos));
+        }
+        overloaded = nowOverloaded;
+    }
+
+    /**
+     * @return requests currently waiting for a connection, -1 when the pool is not a started Hikari pool
+     */
+    public int threadsAwaiting() {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+                if (pool != null) {
+                    return pool.getThreadsAwaitingConnection();
+                }
+            }
+        } catch (SQLException ex) {
+            log.debug("Cannot read the connection pool state: {}", ex.getMessage());
+        }
+        return -1;
+    }
+}
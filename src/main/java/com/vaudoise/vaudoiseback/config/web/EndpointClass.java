@@ -0,0 +1,69 @@
+package com.vaudoise.vaudoiseback.config.web;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Classes of API endpoints sharing a rate limit, by the load one call puts on the database.
+ * Each class has its own per-user budget, {@code vaudoise.rate-limit.<name>.rate} requests per second with bursts of
+ * {@code vaudoise.rate-limit.<name>.burst}; the sheddable ones are refused first when the connection pool saturates.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum EndpointClass {
+
+    /**
+     * Single client or contract, read by id or uuid, mostly from the second-level cache
+     */
+    LOOKUP("lookup", 200, 400, false),
+    /**
+     * Pages of clients, contracts and changes
+     */
+    BROWSE("browse", 20, 40, true),
+    /**
+     * Creations, updates and deletions of a single client or contract
+     */
+    WRITE("write", 50, 100, false),
+    /**
+     * Exports, bulk imports, batches, multi-client sums and analytics
+     */
+    BULK("bulk", 1, 5, true);
+
+    private static final String API_PREFIX = "/api/v1/";
+
+    private final String propertyName;
+    private final double defaultRate;
+    private final int defaultBurst;
+    private final boolean sheddable;
+
+    /**
+     * Class of an API request
+     *
+     * @param method HTTP method
+     * @param path   Servlet path, without the context path
+     * @return the endpoint class, null when the path is not part of the API
+     */
+    public static EndpointClass of(String method, String path) {
+        if (path == null || !path.startsWith(API_PREFIX)) {
+            return null;
+        }
+        String resource = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        if (resource.startsWith("/api/v1/analytics")
+                || resource.endsWith("/export")
+                || resource.endsWith("/bulk")
+                || resource.endsWith("/batch")
+                || resource.endsWith("/sums")) {
+            return BULK;
+        }
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return WRITE;
+        }
+        if (resource.equals("/api/v1/clients")
+                || resource.equals("/api/v1/contracts")
+                || resource.equals("/api/v1/changes")
+                || resource.endsWith("/contracts/active")) {
+            return BROWSE;
+        }
+        return LOOKUP;
+    }
+}
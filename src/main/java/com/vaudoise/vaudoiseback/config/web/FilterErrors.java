@@ -0,0 +1,37 @@
+package com.vaudoise.vaudoiseback.config.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Error bodies written by the filters rejecting a request before it reaches a controller, shaped like the ones of
+ * the exception handler
+ */
+final class FilterErrors {
+
+    private FilterErrors() {
+    }
+
+    static void write(HttpServletResponse response, ObjectMapper objectMapper, HttpStatus status, ErrorEnum error,
+                      long retryAfterSeconds) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("error", String.valueOf(error.getCode()));
+        body.put("message", error.getDescription());
+        body.put("status", status.value());
+
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
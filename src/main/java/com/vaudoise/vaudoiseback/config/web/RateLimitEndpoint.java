@@ -0,0 +1,27 @@
+package com.vaudoise.vaudoiseback.config.web;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint exposing the per-class limits of {@link RateLimitFilter}, how many requests were admitted,
+ * rate limited and shed, and the connection pool pressure. Reading it is {@code GET /actuator/ratelimit}.
+ */
+@Component
+@Endpoint(id = "ratelimit")
+public class RateLimitEndpoint {
+
+    private final RateLimitFilter rateLimitFilter;
+
+    public RateLimitEndpoint(RateLimitFilter rateLimitFilter) {
+        this.rateLimitFilter = rateLimitFilter;
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        return rateLimitFilter.statistics();
+    }
+}
@@ -0,0 +1,148 @@
+package com.vaudoise.vaudoiseback.config.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user admission control of the API, after authentication.
+ * <p>
+ * Every user has one token bucket per {@link EndpointClass}, so that an integration looping on pages or exports
+ * runs out of its own budget (429) without taking the connections the other users need. On top of that, while the
+ * {@link ConnectionPoolPressure connection pool} is overloaded the sheddable classes are refused for everyone (503),
+ * leaving the pool to the single reads and the writes. Both answers carry a Retry-After.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final ConnectionPoolPressure poolPressure;
+    private final ObjectMapper objectMapper;
+    private final Map<EndpointClass, Limit> limits = new EnumMap<>(EndpointClass.class);
+
+    public RateLimitFilter(@Value("${vaudoise.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${vaudoise.rate-limit.idle-expiry:10m}") Duration idleExpiry,
+                           @Value("${vaudoise.rate-limit.max-users:100000}") long maxUsers,
+                           ConnectionPoolPressure poolPressure,
+                           ObjectMapper objectMapper,
+                           Environment environment) {
+        this.enabled = enabled;
+        this.poolPressure = poolPressure;
+        this.objectMapper = objectMapper;
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String prefix = "vaudoise.rate-limit." + endpointClass.getPropertyName();
+            double rate = environment.getProperty(prefix + ".rate", Double.class, endpointClass.getDefaultRate());
+            int burst = environment.getProperty(prefix + ".burst", Integer.class, endpointClass.getDefaultBurst());
+            limits.put(endpointClass, new Limit(rate, burst, idleExpiry, maxUsers));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        EndpointClass endpointClass = EndpointClass.of(request.getMethod(), request.getServletPath());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (endpointClass == null || authentication == null || !authentication.isAuthenticated()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        Limit limit = limits.get(endpointClass);
+
+        if (endpointClass.isSheddable() && poolPressure.isOverloaded()) {
+            limit.shed.increment();
+            FilterErrors.write(response, objectMapper, HttpStatus.SERVICE_UNAVAILABLE, ErrorEnum.SERVER_BUSY, 1);
+            return;
+        }
+
+        long now = System.nanoTime();
+        long waitNanos = limit.buckets.get(authentication.getName(), user -> new TokenBucket(limit.rate, limit.burst, now))
+                .tryAcquire(now);
+        if (waitNanos > 0) {
+            limit.limited.increment();
+            log.debug("{} {} rate limited for {}", request.getMethod(), request.getRequestURI(), authentication.getName());
+            long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            FilterErrors.write(response, objectMapper, HttpStatus.TOO_MANY_REQUESTS, ErrorEnum.SERVER_RATE_LIMIT, retryAfter);
+            return;
+        }
+        limit.admitted.increment();
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Limits and counters of every endpoint class, read by the ratelimit actuator endpoint
+     */
+    public Map<String, Object> statistics() {
+        Map<String, Object> classes = new LinkedHashMap<>();
+        limits.forEach((endpointClass, limit) -> {
+            Map<String, Object> counters = new LinkedHashMap<>();
+            counters.put("rate", limit.rate);
+            counters.put("burst", limit.burst);
+            counters.put("sheddable", endpointClass.isSheddable());
+            counters.put("users", limit.buckets.estimatedSize());
+            counters.put("admitted", limit.admitted.sum());
+            counters.put("limited", limit.limited.sum());
+            counters.put("shed", limit.shed.sum());
+            classes.put(endpointClass.getPropertyName(), counters);
+        });
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("enabled", enabled);
+        body.put("poolOverloaded", poolPressure.isOverloaded());
+        body.put("poolWaitMs", TimeUnit.NANOSECONDS.toMillis(poolPressure.getRecentWaitNanos()));
+        body.put("poolThreadsAwaiting", poolPressure.threadsAwaiting());
+        body.put("classes", classes);
+        return body;
+    }
+
+    /**
+     * Budget of one endpoint class: the buckets of the users seen recently, idle ones expire
+     */
+    private static final class Limit {
+        private final double rate;
+        private final int burst;
+        private final Cache<String, TokenBucket> buckets;
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder limited = new LongAdder();
+        private final LongAdder shed = new LongAdder();
+
+        private Limit(double rate, int burst, Duration idleExpiry, long maxUsers) {
+            this.rate = rate;
+            this.burst = burst;
+            this.buckets = Caffeine.newBuilder()
+                    .expireAfterAccess(idleExpiry)
+                    .maximumSize(maxUsers)
+                    .build();
+        }
+    }
+}
@@ -13,6 +13,8 @@ public enum ErrorEnum {
     // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
     // >>>>>> AUTHENTICATION (1000 - 1099)
     // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
+    AUTH_TOKEN_CREDENTIALS(1000, "Tokens are only issued against user name and password"),
+    AUTH_TOKEN_ISSUE(1001, "Cannot issue the token"),
 
     // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
     // >>>>>> CLIENTS (1100 - 1199)
@@ -26,6 +28,11 @@ public enum ErrorEnum {
     CLIENT_VALIDATION(1106, "Client parameters are not valid"),
     CLIENT_CONTRACT_LIST(1107, "Cannot list contracts for the client"),
     CLIENT_CONTRACT_SUM(1108, "Cannot sum contracts for the client"),
+    CLIENT_EXPORT(1109, "Cannot export clients"),
+    CLIENT_IMPORT(1110, "Cannot import clients"),
+    CLIENT_DUPLICATE(1111, "A client with the same email or company id already exists"),
+    CLIENT_CONTRACT_SUMS_SIZE(1112, "Too many clients requested"),
+    CLIENT_PRECONDITION(1113, "Client was modified since it was read"),
 
     // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
     // >>>>>> CONTRACTS (1200 - 1299)
@@ -36,7 +43,48 @@ public enum ErrorEnum {
     CONTRACT_CREATE(1203, "Cannot create the contract"),
     CONTRACT_UPDATE(1204, "Cannot update the contract"),
     CONTRACT_DELETE(1205, "Cannot delete the contract"),
-    CONTRACT_VALIDATION(1206, "Contract parameters are not valid");
+    CONTRACT_VALIDATION(1206, "Contract parameters are not valid"),
+    CONTRACT_EXPORT(1207, "Cannot export contracts"),
+    CONTRACT_BATCH(1208, "Cannot apply the contract operations"),
+    CONTRACT_BATCH_SIZE(1209, "Too many contract operations"),
+    CONTRACT_BATCH_CONFLICT(1210, "Contract is targeted by several operations"),
+    CONTRACT_PRECONDITION(1211, "Contract was modified since it was read"),
+
+    // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
+    // >>>>>> PAGINATION (1300 - 1399)
+    // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
+    PAGINATION_CURSOR(1300, "Pagination cursor is not valid"),
+    PAGINATION_SORT(1301, "Sort is not supported for cursor pagination"),
+
+    // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
+    // >>>>>> EXPORT (1400 - 1499)
+    // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
+    EXPORT_FORMAT(1400, "Export format is not supported"),
+    IMPORT_ROW(1401, "Import row cannot be parsed"),
+
+    // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
+    // >>>>>> SEARCH (1500 - 1599)
+    // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
+    SEARCH_QUERY(1500, "Search query is not valid"),
+
+    // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
+    // >>>>>> ANALYTICS (1600 - 1699)
+    // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
+    ANALYTICS_GROUPING(1600, "Analytics grouping is not supported"),
+    ANALYTICS_CONTRACTS(1601, "Cannot compute contract analytics"),
+
+    // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
+    // >>>>>> CHANGES (1700 - 1799)
+    // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
+    CHANGES_CURSOR(1700, "Change feed cursor is not valid"),
+    CHANGES_LIMIT(1701, "Change feed limit is not valid"),
+    CHANGES_READ(1702, "Cannot read the change feed"),
+
+    // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
+    // >>>>>> SERVER (1800 - 1899)
+    // >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>
+    SERVER_BUSY(1800, "Server is busy, retry later"),
+    SERVER_RATE_LIMIT(1801, "Too many requests, retry later");
 
     /**
      * Error identification code
@@ -0,0 +1,77 @@
+package com.vaudoise.vaudoiseback.persistence.analytics;
+
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+
+import java.util.Arrays;
+
+/**
+ * Dimensions contract analytics can be grouped by.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ContractGrouping {
+    CLIENT_TYPE("client-type"),
+    START_MONTH("start-month"),
+    COST_BAND("cost-band");
+
+    /**
+     * Lower bounds of the cost bands after the first one, which starts at 0
+     */
+    private static final long[] COST_BAND_BOUNDS = {100, 250, 500, 1000, 5000};
+
+    private final String value;
+
+    /**
+     * Number of cost bands, the last one has no upper bound
+     */
+    public static int costBandCount() {
+        return COST_BAND_BOUNDS.length + 1;
+    }
+
+    /**
+     * Returns the index of the cost band a cost in cents falls in.
+     */
+    public static int costBandIndex(long costCents) {
+        int band = 0;
+        while (band < COST_BAND_BOUNDS.length && costCents >= COST_BAND_BOUNDS[band] * 100) {
+            band++;
+        }
+        return band;
+    }
+
+    /**
+     * Returns the label of a cost band, e.g. "100-250". The last band is open, e.g. "5000+".
+     */
+    public static String costBandLabel(int band) {
+        long lower = band == 0 ? 0 : COST_BAND_BOUNDS[band - 1];
+        return band < COST_BAND_BOUNDS.length ? lower + "-" + COST_BAND_BOUNDS[band] : lower + "+";
+    }
+
+    /**
+     * Returns a SQL expression computing the cost band label of a cost column, see {@link #costBandLabel(int)}.
+     */
+    public static String costBandSql(String column) {
+        StringBuilder sql = new StringBuilder("CASE");
+        for (int band = 0; band < COST_BAND_BOUNDS.length; band++) {
+            sql.append(" WHEN ").append(column).append(" < ").append(COST_BAND_BOUNDS[band])
+                    .append(" THEN '").append(costBandLabel(band)).append('\'');
+        }
+        return sql.append(" ELSE '").append(costBandLabel(COST_BAND_BOUNDS.length)).append("' END").toString();
+    }
+
+    /**
+     * Resolves a grouping from its value, case-insensitive.
+     *
+     * @throws CustomException if the grouping is not supported
+     */
+    public static ContractGrouping fromValue(String value) throws CustomException {
+        return Arrays.stream(values())
+                .filter(grouping -> grouping.value.equalsIgnoreCase(value) || grouping.name().equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new CustomException(ErrorEnum.ANALYTICS_GROUPING, HttpStatus.BAD_REQUEST));
+    }
+}
@@ -2,10 +2,16 @@ package com.vaudoise.vaudoiseback.persistence.entities;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.vaudoise.vaudoiseback.persistence.entities.enums.ClientType;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.JdbcType;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.OptimisticLock;
 import org.hibernate.type.descriptor.jdbc.VarcharJdbcType;
 
 import java.io.Serial;
@@ -17,12 +23,14 @@ import java.util.UUID;
 @Data
 @NoArgsConstructor(force = true)
 @AllArgsConstructor
-@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@EqualsAndHashCode(onlyExplicitlyIncluded = true, callSuper = false)
 @Entity
 @Table(name = "vaudoise_clients")
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "client_type", discriminatorType = DiscriminatorType.STRING)
-public abstract class Client implements Serializable {
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "clients")
+@NaturalIdCache(region = "clients-by-uuid")
+public abstract class Client extends Auditable implements Serializable {
 
     @Serial
     private static final long serialVersionUID = -3925680101281537660L;
@@ -33,11 +41,19 @@ public abstract class Client implements Serializable {
     @Column(name = "id")
     private Long id;
 
+    @NaturalId
     @JdbcType(VarcharJdbcType.class)
     @Column(name = "uuid", unique = true, nullable = false)
     @EqualsAndHashCode.Include
     private UUID uuid = UUID.randomUUID();
 
+    /**
+     * Discriminator value, read-only: the type is set by the subclass
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "client_type", insertable = false, updatable = false)
+    private ClientType type;
+
     @Column(name = "name", columnDefinition = "text", nullable = false)
     private String name;
 
@@ -47,10 +63,15 @@ public abstract class Client implements Serializable {
     @Column(name = "phone", columnDefinition = "text",nullable = false)
     private String phone;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @ToString.Exclude
     @JsonIgnore
     @JsonBackReference
     @Schema(hidden = true)
+    @OptimisticLock(excluded = true)
     @OneToMany(mappedBy = "client", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Contract> contracts = new ArrayList<>();
 }
@@ -4,21 +4,28 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.JdbcType;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.type.descriptor.jdbc.VarcharJdbcType;
 
 import java.io.Serial;
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.UUID;
 
 @Data
 @NoArgsConstructor(force = true)
-@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@EqualsAndHashCode(onlyExplicitlyIncluded = true, callSuper = false)
 @Entity
 @Table(name = "vaudoise_contracts")
-public class Contract implements Serializable {
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "contracts")
+@NaturalIdCache(region = "contracts-by-uuid")
+public class Contract extends Auditable implements Serializable {
 
     @Serial
     private static final long serialVersionUID = 5387121505461634009L;
@@ -29,6 +36,7 @@ public class Contract implements Serializable {
     @Column(name = "id")
     private Long id;
 
+    @NaturalId
     @JdbcType(VarcharJdbcType.class)
     @Column(name =  "uuid", unique = true, nullable = false)
     @EqualsAndHashCode.Include
@@ -43,12 +51,23 @@ public class Contract implements Serializable {
     @Column(name = "cost", nullable = false, precision = 15, scale = 2)
     private BigDecimal cost;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
 
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "client_id")
     private Client client;
 
 
+    /**
+     * Stores the cost with the column scale, so that a cached contract reads the same as one loaded from the database.
+     */
+    public void setCost(BigDecimal cost) {
+        this.cost = cost == null ? null : cost.setScale(2, RoundingMode.HALF_UP);
+    }
+
     @PrePersist
     @PreUpdate
     private void validateDates() {
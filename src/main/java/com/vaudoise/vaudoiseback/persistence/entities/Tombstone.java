@@ -0,0 +1,37 @@
+package com.vaudoise.vaudoiseback.persistence.entities;
+
+import com.vaudoise.vaudoiseback.persistence.entities.enums.ChangeEntityType;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trace of a deleted client or contract, read by the change feed. Rows are only written by
+ * {@link com.vaudoise.vaudoiseback.persistence.repositories.TombstoneRepository}, right before the deletion.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "vaudoise_tombstones")
+public class Tombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false)
+    private ChangeEntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "uuid", nullable = false)
+    private String uuid;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
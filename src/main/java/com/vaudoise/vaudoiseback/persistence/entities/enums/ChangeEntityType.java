@@ -0,0 +1,6 @@
+package com.vaudoise.vaudoiseback.persistence.entities.enums;
+
+public enum ChangeEntityType {
+    CLIENT,
+    CONTRACT
+}
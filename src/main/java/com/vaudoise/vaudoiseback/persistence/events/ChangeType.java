@@ -0,0 +1,7 @@
+package com.vaudoise.vaudoiseback.persistence.events;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,21 @@
+package com.vaudoise.vaudoiseback.persistence.events;
+
+import com.vaudoise.vaudoiseback.rest.dto.ClientResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by the client services inside the writing transaction. Listeners that keep read models in sync
+ * consume it after commit.
+ */
+@Getter
+@AllArgsConstructor
+public class ClientChangedEvent {
+
+    private final ChangeType type;
+
+    /**
+     * Client state after the change, or the deleted client for {@link ChangeType#DELETED}
+     */
+    private final ClientResponse client;
+}
@@ -0,0 +1,26 @@
+package com.vaudoise.vaudoiseback.persistence.events;
+
+import com.vaudoise.vaudoiseback.rest.dto.ContractResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by the contract services inside the writing transaction. Listeners that keep read models in sync
+ * consume it after commit.
+ */
+@Getter
+@AllArgsConstructor
+public class ContractChangedEvent {
+
+    private final ChangeType type;
+
+    /**
+     * Contract state before the change, null for {@link ChangeType#CREATED}
+     */
+    private final ContractResponse before;
+
+    /**
+     * Contract state after the change, null for {@link ChangeType#DELETED}
+     */
+    private final ContractResponse after;
+}
@@ -0,0 +1,62 @@
+package com.vaudoise.vaudoiseback.persistence.pagination;
+
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position of the last entry returned by the change feed: modification time, source and id of that entry.
+ * Entries of a same modification time are ordered by source, then by id. Clients only see it as a Base64 token.
+ */
+@Getter
+@AllArgsConstructor
+public class ChangeCursor {
+
+    private static final String SEPARATOR = "\n";
+
+    /**
+     * Position before any change
+     */
+    public static final ChangeCursor START = new ChangeCursor(LocalDateTime.of(1970, 1, 1, 0, 0), -1, 0L);
+
+    private final LocalDateTime modifiedAt;
+    private final int source;
+    private final Long id;
+
+    /**
+     * Encodes this cursor as a URL safe token.
+     *
+     * @return Opaque token
+     */
+    public String encode() {
+        String raw = modifiedAt + SEPARATOR + source + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token built by {@link #encode()}.
+     *
+     * @param token Opaque token
+     * @return Decoded cursor
+     * @throws CustomException if the token is malformed
+     */
+    public static ChangeCursor decode(String token) throws CustomException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 3);
+            if (parts.length != 3) {
+                throw new CustomException(ErrorEnum.CHANGES_CURSOR, HttpStatus.BAD_REQUEST);
+            }
+            return new ChangeCursor(LocalDateTime.parse(parts[0]), Integer.parseInt(parts[1]), Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException | DateTimeException ex) {
+            throw new CustomException(ErrorEnum.CHANGES_CURSOR, HttpStatus.BAD_REQUEST);
+        }
+    }
+}
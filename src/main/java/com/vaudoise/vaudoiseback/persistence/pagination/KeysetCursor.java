@@ -0,0 +1,57 @@
+package com.vaudoise.vaudoiseback.persistence.pagination;
+
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position of the last row returned by a keyset page: sort property, direction,
+ * sort value and id of that row. Clients only see it as a Base64 token.
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+
+    private static final String SEPARATOR = "\n";
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final Long id;
+    private final String value;
+
+    /**
+     * Encodes this cursor as a URL safe token.
+     *
+     * @return Opaque token
+     */
+    public String encode() {
+        String raw = property + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token built by {@link #encode()}.
+     *
+     * @param token Opaque token
+     * @return Decoded cursor
+     * @throws CustomException if the token is malformed
+     */
+    public static KeysetCursor decode(String token) throws CustomException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new CustomException(ErrorEnum.PAGINATION_CURSOR, HttpStatus.BAD_REQUEST);
+            }
+            return new KeysetCursor(parts[0], Sort.Direction.valueOf(parts[1]), Long.valueOf(parts[2]), parts[3]);
+        } catch (IllegalArgumentException ex) {
+            throw new CustomException(ErrorEnum.PAGINATION_CURSOR, HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.vaudoise.vaudoiseback.persistence.pagination;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Reads the rows of a keyset page.
+ *
+ * @param <E> Queried entity
+ * @param <D> Row type
+ */
+@FunctionalInterface
+public interface KeysetFetcher<E, D> {
+
+    /**
+     * @param spec  Filter including the keyset restriction, never null
+     * @param sort  Order of the rows, ending with the id
+     * @param limit Maximum number of rows
+     * @return Rows
+     */
+    List<D> fetch(Specification<E> spec, Sort sort, int limit);
+}
@@ -0,0 +1,62 @@
+package com.vaudoise.vaudoiseback.persistence.pagination;
+
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+
+/**
+ * Keyset (seek) page request: one sort property with id as tie breaker, a page size and
+ * the cursor of the last row already seen.
+ */
+@Getter
+public class KeysetPageRequest {
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final int limit;
+    private final KeysetCursor after;
+
+    private KeysetPageRequest(String property, Sort.Direction direction, int limit, KeysetCursor after) {
+        this.property = property;
+        this.direction = direction;
+        this.limit = limit;
+        this.after = after;
+    }
+
+    /**
+     * Builds a request from raw API parameters. When a cursor is given its sort wins,
+     * and an explicit sort that contradicts it is rejected.
+     *
+     * @param sort      Sort property, id by default
+     * @param direction Sort direction, ASC by default
+     * @param limit     Page size, capped at maxLimit
+     * @param after     Cursor returned by the previous page
+     * @param maxLimit  Hard cap on the page size
+     * @return Page request
+     * @throws CustomException if the cursor or the sort are not valid
+     */
+    public static KeysetPageRequest of(String sort, String direction, int limit, String after, int maxLimit) throws CustomException {
+        Sort.Direction dir;
+        try {
+            dir = StringUtils.hasText(direction) ? Sort.Direction.fromString(direction) : Sort.Direction.ASC;
+        } catch (IllegalArgumentException ex) {
+            throw new CustomException(ErrorEnum.PAGINATION_SORT, HttpStatus.BAD_REQUEST);
+        }
+        String property = StringUtils.hasText(sort) ? sort : "id";
+        int size = Math.min(Math.max(limit, 1), maxLimit);
+
+        if (!StringUtils.hasText(after)) {
+            return new KeysetPageRequest(property, dir, size, null);
+        }
+
+        KeysetCursor cursor = KeysetCursor.decode(after);
+        if ((StringUtils.hasText(sort) && !sort.equals(cursor.getProperty()))
+                || (StringUtils.hasText(direction) && dir != cursor.getDirection())) {
+            throw new CustomException(ErrorEnum.PAGINATION_CURSOR, HttpStatus.BAD_REQUEST);
+        }
+        return new KeysetPageRequest(cursor.getProperty(), cursor.getDirection(), size, cursor);
+    }
+}
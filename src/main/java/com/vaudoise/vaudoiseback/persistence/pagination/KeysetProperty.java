@@ -0,0 +1,46 @@
+package com.vaudoise.vaudoiseback.persistence.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Non-nullable attribute that can be used as keyset sort key.
+ *
+ * @param <T> Row type the sort value is read from
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetProperty<T> {
+
+    private final String name;
+    private final Class<? extends Comparable<?>> type;
+    private final Function<T, Object> accessor;
+
+    /**
+     * Parses a cursor value back to the attribute's Java type.
+     *
+     * @param raw Value as stored in the cursor
+     * @return Typed value
+     */
+    public Comparable<?> parse(String raw) {
+        if (type == Long.class) return Long.valueOf(raw);
+        if (type == LocalDate.class) return LocalDate.parse(raw);
+        if (type == BigDecimal.class) return new BigDecimal(raw);
+        return raw;
+    }
+
+    /**
+     * Indexes the given properties by name.
+     */
+    @SafeVarargs
+    public static <T> Map<String, KeysetProperty<T>> index(KeysetProperty<T>... properties) {
+        return Arrays.stream(properties).collect(Collectors.toUnmodifiableMap(KeysetProperty::getName, Function.identity()));
+    }
+}
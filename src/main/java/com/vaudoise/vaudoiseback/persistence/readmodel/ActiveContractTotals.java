@@ -0,0 +1,397 @@
+package com.vaudoise.vaudoiseback.persistence.readmodel;
+
+import com.vaudoise.vaudoiseback.persistence.events.ChangeType;
+import com.vaudoise.vaudoiseback.persistence.events.ClientChangedEvent;
+import com.vaudoise.vaudoiseback.persistence.events.ContractChangedEvent;
+import com.vaudoise.vaudoiseback.persistence.repositories.ContractRepository;
+import com.vaudoise.vaudoiseback.rest.dto.ContractResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Materialized sum of the active contract costs of every client.
+ * <p>
+ * A contract is active while it has no end date or its end date is after today. Totals are kept current by the
+ * contract change events, and contracts with an end date are scheduled to be subtracted on that date by the daily
+ * rollover. A periodic verification recomputes the totals from the database, reports drift and repairs it.
+ * Reads are lock-free; writes are serialized, as they are rare compared to reads.
+ * <p>
+ * A client total is only reloaded from the database while no transaction changing its contracts is committing.
+ * Committing transactions register themselves under the lock before commit, so a reload sees either none or all of
+ * the changes whose deltas are applied afterwards, and never counts a change twice.
+ */
+@Component
+@Slf4j
+public class ActiveContractTotals {
+
+    private final ContractRepository contractRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, BigDecimal> totals = new ConcurrentHashMap<>();
+    private final NavigableMap<LocalDate, Map<Long, ContractExpiry>> expirations = new ConcurrentSkipListMap<>();
+    private final Map<Long, Map<Long, ContractExpiry>> expirationsByClient = new ConcurrentHashMap<>();
+    /**
+     * Transactions changing the contracts of a client that are committing, by client id
+     */
+    private final Map<Long, Integer> committing = new HashMap<>();
+    /**
+     * Clients whose total is reloaded from the database once no transaction is committing for them, their change
+     * events are ignored meanwhile
+     */
+    private final Set<Long> stale = new HashSet<>();
+    private final AtomicLong drift = new AtomicLong();
+    private volatile LocalDate rolledOverAt = LocalDate.now();
+    private volatile boolean building;
+    private volatile boolean ready;
+
+    public ActiveContractTotals(ContractRepository contractRepository, PlatformTransactionManager transactionManager,
+                                @Value("${vaudoise.totals.enabled:true}") boolean enabled) {
+        this.contractRepository = contractRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // reloads also run once a writing transaction has completed, while its resources are still bound
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Number of client totals found out of sync with the database since startup.
+     */
+    public long getDrift() {
+        return drift.get();
+    }
+
+    /**
+     * Returns the active contract total of a client.
+     *
+     * @param clientId Client id
+     * @return Total, or empty if the totals are not built yet
+     */
+    public Optional<BigDecimal> get(Long clientId) {
+        if (!ready) return Optional.empty();
+        if (LocalDate.now().isAfter(rolledOverAt)) {
+            rollover();
+        }
+        return Optional.of(totals.getOrDefault(clientId, BigDecimal.ZERO));
+    }
+
+    /**
+     * Loads every total from the database. Clients changed while loading, or still committing a change when the load
+     * ends, are reloaded afterwards. A failed load is
+     * retried by the next verification.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) return;
+        lock.lock();
+        try {
+            if (building || ready) return;
+            building = true;
+        } finally {
+            lock.unlock();
+        }
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<ClientContractTotal> stream = contractRepository.streamActiveContractTotals()) {
+                    stream.forEach(total -> totals.put(total.getClientId(), total.getTotal()));
+                }
+                try (Stream<ContractExpiry> stream = contractRepository.streamActiveContractExpiries()) {
+                    stream.forEach(this::schedule);
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.lock();
+            try {
+                totals.clear();
+                expirations.clear();
+                expirationsByClient.clear();
+                stale.clear();
+                building = false;
+            } finally {
+                lock.unlock();
+            }
+            log.error("Active contract totals could not be built, retrying at the next verification", e);
+            return;
+        }
+
+        List<Long> settled;
+        lock.lock();
+        try {
+            rolledOverAt = today;
+            building = false;
+            ready = true;
+            // the load may already include the changes committing now, their clients are reloaded once settled
+            stale.addAll(committing.keySet());
+            settled = stale.stream().filter(clientId -> !committing.containsKey(clientId)).toList();
+        } finally {
+            lock.unlock();
+        }
+        settled.forEach(this::reload);
+        log.info("Active contract totals built: {} clients in {} ms", totals.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Registers the committing transaction for the clients of the contract, the change is applied once it has
+     * committed.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onContractChanged(ContractChangedEvent event) {
+        if (!enabled) return;
+        List<Long> clientIds = Stream.of(event.getBefore(), event.getAfter())
+                .filter(Objects::nonNull)
+                .map(ContractResponse::getClientId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        lock.lock();
+        try {
+            clientIds.forEach(clientId -> committing.merge(clientId, 1, Integer::sum));
+        } finally {
+            lock.unlock();
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                onContractCompleted(event, clientIds, status);
+            }
+        });
+    }
+
+    @TransactionalEventListener
+    public void onClientChanged(ClientChangedEvent event) {
+        if (!enabled || event.getType() != ChangeType.DELETED) return;
+        Long clientId = event.getClient().getId();
+        lock.lock();
+        try {
+            // contracts are removed by the database cascade, no contract event is published for them
+            totals.remove(clientId);
+            unscheduleClient(clientId);
+            if (building) stale.add(clientId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Subtracts the contracts whose end date has been reached.
+     */
+    @Scheduled(cron = "${vaudoise.totals.rollover-cron:0 0 0 * * *}")
+    public void rollover() {
+        if (!ready) return;
+        lock.lock();
+        try {
+            rolloverLocked(LocalDate.now());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Recomputes every total from the database, reports the clients out of sync and repairs them. Builds the totals
+     * if they are not built yet.
+     */
+    @Scheduled(cron = "${vaudoise.totals.verify-cron:0 30 * * * *}")
+    public void verify() {
+        if (!ready) {
+            if (!building) build();
+            return;
+        }
+        rollover();
+        Map<Long, BigDecimal> expected = new HashMap<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<ClientContractTotal> stream = contractRepository.streamActiveContractTotals()) {
+                stream.forEach(total -> expected.put(total.getClientId(), total.getTotal()));
+            }
+        });
+
+        Set<Long> clientIds = new HashSet<>(expected.keySet());
+        clientIds.addAll(totals.keySet());
+        int drifted = 0;
+        for (Long clientId : clientIds) {
+            BigDecimal actual = totals.getOrDefault(clientId, BigDecimal.ZERO);
+            BigDecimal wanted = expected.getOrDefault(clientId, BigDecimal.ZERO);
+            // the scan above ran without the lock, a difference may only be a change committed meanwhile
+            if (actual.compareTo(wanted) != 0 && recheck(clientId)) {
+                drifted++;
+            }
+        }
+        drift.addAndGet(drifted);
+        log.info("Active contract totals verified: {} clients, {} drifted", clientIds.size(), drifted);
+    }
+
+    // ---------------- Maintenance ----------------
+
+    private void onContractCompleted(ContractChangedEvent event, List<Long> clientIds, int status) {
+        List<Long> settled = new ArrayList<>();
+        lock.lock();
+        try {
+            if (status == TransactionSynchronization.STATUS_COMMITTED && ready) {
+                rolloverLocked(LocalDate.now());
+                apply(event);
+            } else if (status != TransactionSynchronization.STATUS_ROLLED_BACK && (building || ready)) {
+                // committed while building, or unknown outcome: the totals are reloaded from the database
+                stale.addAll(clientIds);
+            }
+            for (Long clientId : clientIds) {
+                if (committing.merge(clientId, -1, Integer::sum) == 0) {
+                    committing.remove(clientId);
+                    if (ready && stale.contains(clientId)) settled.add(clientId);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        settled.forEach(this::reload);
+    }
+
+    // callers hold the lock
+    private void apply(ContractChangedEvent event) {
+        ContractResponse before = event.getBefore();
+        ContractResponse after = event.getAfter();
+        if (before != null && !stale.contains(before.getClientId())) {
+            unschedule(before.getId(), before.getEndDate());
+            if (isActive(before)) {
+                add(before.getClientId(), before.getCost().negate());
+            }
+        }
+        if (after != null && isActive(after) && !stale.contains(after.getClientId())) {
+            add(after.getClientId(), after.getCost());
+            if (after.getEndDate() != null) {
+                schedule(new ContractExpiry(after.getId(), after.getClientId(), after.getCost(), after.getEndDate()));
+            }
+        }
+    }
+
+    /**
+     * Reloads a stale client, unless a transaction changing its contracts started committing meanwhile. The
+     * connection is taken before the lock, so that the lock is never held while waiting for the pool.
+     */
+    private void reload(Long clientId) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            lock.lock();
+            try {
+                if (!ready || committing.containsKey(clientId) || !stale.contains(clientId)) return;
+                refresh(clientId);
+                stale.remove(clientId);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Compares a client total with the database while no change of the client can commit, and repairs it.
+     *
+     * @return Whether the total had drifted
+     */
+    private boolean recheck(Long clientId) {
+        return Boolean.TRUE.equals(readOnlyTransaction.execute(status -> {
+            lock.lock();
+            try {
+                if (committing.containsKey(clientId) || stale.contains(clientId)) return false;
+                rolloverLocked(LocalDate.now());
+                BigDecimal actual = totals.getOrDefault(clientId, BigDecimal.ZERO);
+                BigDecimal wanted = contractRepository.sumActiveContractCostsByClientId(clientId);
+                if (actual.compareTo(wanted) == 0) return false;
+                log.warn("Active contract total drift for client {}: materialized {} but database {}", clientId, actual, wanted);
+                refresh(clientId);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }));
+    }
+
+    // callers hold the lock
+    private void rolloverLocked(LocalDate today) {
+        Map.Entry<LocalDate, Map<Long, ContractExpiry>> entry;
+        while ((entry = expirations.firstEntry()) != null && !entry.getKey().isAfter(today)) {
+            expirations.remove(entry.getKey());
+            entry.getValue().values().forEach(expiry -> {
+                add(expiry.getClientId(), expiry.getCost().negate());
+                unindex(expiry);
+            });
+        }
+        rolledOverAt = today;
+    }
+
+    // callers hold the lock, inside a transaction
+    private void refresh(Long clientId) {
+        unscheduleClient(clientId);
+        totals.put(clientId, contractRepository.sumActiveContractCostsByClientId(clientId));
+        contractRepository.findActiveContractExpiriesByClientId(clientId).forEach(this::schedule);
+    }
+
+    private void add(Long clientId, BigDecimal delta) {
+        if (clientId == null) return;
+        totals.merge(clientId, delta, BigDecimal::add);
+    }
+
+    private void schedule(ContractExpiry expiry) {
+        expirations.computeIfAbsent(expiry.getEndDate(), date -> new ConcurrentHashMap<>()).put(expiry.getId(), expiry);
+        expirationsByClient.computeIfAbsent(expiry.getClientId(), client -> new ConcurrentHashMap<>())
+                .put(expiry.getId(), expiry);
+    }
+
+    private void unschedule(Long contractId, LocalDate endDate) {
+        if (endDate == null) return;
+        Map<Long, ContractExpiry> bucket = expirations.get(endDate);
+        if (bucket == null) return;
+        ContractExpiry expiry = bucket.remove(contractId);
+        if (bucket.isEmpty()) expirations.remove(endDate);
+        if (expiry != null) unindex(expiry);
+    }
+
+    private void unindex(ContractExpiry expiry) {
+        Map<Long, ContractExpiry> ofClient = expirationsByClient.get(expiry.getClientId());
+        if (ofClient == null) return;
+        ofClient.remove(expiry.getId());
+        if (ofClient.isEmpty()) expirationsByClient.remove(expiry.getClientId());
+    }
+
+    private void unscheduleClient(Long clientId) {
+        Map<Long, ContractExpiry> ofClient = expirationsByClient.remove(clientId);
+        if (ofClient == null) return;
+        for (ContractExpiry expiry : ofClient.values()) {
+            Map<Long, ContractExpiry> bucket = expirations.get(expiry.getEndDate());
+            if (bucket == null) continue;
+            bucket.remove(expiry.getId());
+            if (bucket.isEmpty()) expirations.remove(expiry.getEndDate());
+        }
+    }
+
+    private boolean isActive(ContractResponse contract) {
+        return contract.getClientId() != null
+                && (contract.getEndDate() == null || contract.getEndDate().isAfter(rolledOverAt));
+    }
+}
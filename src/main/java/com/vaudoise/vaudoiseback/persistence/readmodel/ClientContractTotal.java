@@ -0,0 +1,16 @@
+package com.vaudoise.vaudoiseback.persistence.readmodel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Sum of the active contract costs of a client.
+ */
+@Getter
+@AllArgsConstructor
+public class ClientContractTotal {
+    private final Long clientId;
+    private final BigDecimal total;
+}
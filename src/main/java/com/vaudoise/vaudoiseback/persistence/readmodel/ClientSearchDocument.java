@@ -0,0 +1,16 @@
+package com.vaudoise.vaudoiseback.persistence.readmodel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Searchable fields of a client, as read by the search index.
+ */
+@Getter
+@AllArgsConstructor
+public class ClientSearchDocument {
+    private final Long id;
+    private final String name;
+    private final String email;
+    private final String phone;
+}
@@ -0,0 +1,244 @@
+package com.vaudoise.vaudoiseback.persistence.readmodel;
+
+import com.vaudoise.vaudoiseback.persistence.events.ChangeType;
+import com.vaudoise.vaudoiseback.persistence.events.ClientChangedEvent;
+import com.vaudoise.vaudoiseback.persistence.repositories.ClientRepository;
+import com.vaudoise.vaudoiseback.rest.dto.ClientResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory trigram inverted index over client name, email and phone.
+ * <p>
+ * Every field, lower-cased and stripped of its diacritics, is split into trigrams, each trigram maps to the sorted ids
+ * of the clients containing it. A substring search intersects the posting lists of the query's trigrams and verifies
+ * the candidates against the indexed text. This answers the same question as {@code lower(field) LIKE '%text%'}
+ * under the accent-insensitive collation of the database, where "zurich" also matches "Zürich", without scanning
+ * the table.
+ * Queries shorter than a trigram, or issued before the index is built, are not answered and callers fall back to SQL.
+ */
+@Component
+@Slf4j
+public class ClientSearchIndex {
+
+    public static final int GRAM = 3;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final ClientRepository clientRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, LongPostingList> postings = new HashMap<>();
+    private final Map<Long, String[]> documents = new HashMap<>();
+    private final Set<Long> deletedWhileBuilding = new HashSet<>();
+    private volatile boolean building;
+    private volatile boolean ready;
+
+    public ClientSearchIndex(ClientRepository clientRepository, PlatformTransactionManager transactionManager,
+                             @Value("${vaudoise.search.index.enabled:true}") boolean enabled) {
+        this.clientRepository = clientRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Loads every client from the database. Changes committed while loading are kept, as they are newer. A failed
+     * load is retried by {@link #retry()}.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) return;
+        lock.writeLock().lock();
+        try {
+            if (building || ready) return;
+            building = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long start = System.currentTimeMillis();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<ClientSearchDocument> stream = clientRepository.streamSearchDocuments()) {
+                    stream.forEach(document -> {
+                        lock.writeLock().lock();
+                        try {
+                            if (!documents.containsKey(document.getId()) && !deletedWhileBuilding.contains(document.getId())) {
+                                put(document.getId(), document.getName(), document.getEmail(), document.getPhone());
+                            }
+                        } finally {
+                            lock.writeLock().unlock();
+                        }
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                documents.clear();
+                postings.clear();
+                deletedWhileBuilding.clear();
+                building = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("Client search index could not be built, retrying later", e);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            building = false;
+            deletedWhileBuilding.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Client search index built: {} clients, {} trigrams in {} ms", documents.size(), postings.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Builds the index again if the previous build failed.
+     */
+    @Scheduled(cron = "${vaudoise.search.index.retry-cron:0 */5 * * * *}")
+    public void retry() {
+        if (!ready && !building) build();
+    }
+
+    @TransactionalEventListener
+    public void onClientChanged(ClientChangedEvent event) {
+        if (!enabled) return;
+        ClientResponse client = event.getClient();
+        lock.writeLock().lock();
+        try {
+            remove(client.getId());
+            if (event.getType() == ChangeType.DELETED) {
+                if (building) deletedWhileBuilding.add(client.getId());
+            } else {
+                put(client.getId(), client.getName(), client.getEmail(), client.getPhone());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the sorted ids of the clients whose name, email or phone contains the given text, case and accent
+     * insensitive.
+     *
+     * @param text Text to search
+     * @return Matching ids, or empty if the index cannot answer this query
+     */
+    public Optional<long[]> search(String text) {
+        if (!ready || text == null) return Optional.empty();
+        String needle = normalize(text);
+        if (needle.length() < GRAM) return Optional.empty();
+
+        lock.readLock().lock();
+        try {
+            List<LongPostingList> lists = new ArrayList<>();
+            for (long gram : grams(needle)) {
+                LongPostingList list = postings.get(gram);
+                if (list == null) return Optional.of(new long[0]);
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(LongPostingList::size));
+
+            long[] candidates = lists.get(0).toArray();
+            int length = candidates.length;
+            for (int i = 1; i < lists.size() && length > 0; i++) {
+                length = lists.get(i).retainIn(candidates, length);
+            }
+
+            // trigrams may come from different fields or positions, confirm the substring
+            int matches = 0;
+            for (int i = 0; i < length; i++) {
+                String[] fields = documents.get(candidates[i]);
+                if (fields != null && contains(fields, needle)) {
+                    candidates[matches++] = candidates[i];
+                }
+            }
+            return Optional.of(Arrays.copyOf(candidates, matches));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // callers hold the write lock
+    private void put(Long id, String name, String email, String phone) {
+        String[] fields = {normalize(name), normalize(email), normalize(phone)};
+        documents.put(id, fields);
+        for (String field : fields) {
+            for (long gram : grams(field)) {
+                postings.computeIfAbsent(gram, key -> new LongPostingList()).add(id);
+            }
+        }
+    }
+
+    // callers hold the write lock
+    private void remove(Long id) {
+        String[] fields = documents.remove(id);
+        if (fields == null) return;
+        for (String field : fields) {
+            for (long gram : grams(field)) {
+                LongPostingList list = postings.get(gram);
+                if (list != null) {
+                    list.remove(id);
+                    if (list.isEmpty()) postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static boolean contains(String[] fields, String needle) {
+        for (String field : fields) {
+            if (field.contains(needle)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Lower case without diacritics: decomposed, the combining marks are dropped. ASCII text, the common case, is
+     * only lower-cased.
+     */
+    static String normalize(String value) {
+        if (value == null) return "";
+        String lower = value.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) >= 0x80) {
+                return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return lower;
+    }
+
+    private static Set<Long> grams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+}
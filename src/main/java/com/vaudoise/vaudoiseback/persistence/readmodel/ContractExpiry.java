@@ -0,0 +1,19 @@
+package com.vaudoise.vaudoiseback.persistence.readmodel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Active contract with an end date, which stops counting in its client's total once that date is reached.
+ */
+@Getter
+@AllArgsConstructor
+public class ContractExpiry {
+    private final Long id;
+    private final Long clientId;
+    private final BigDecimal cost;
+    private final LocalDate endDate;
+}
@@ -0,0 +1,473 @@
+package com.vaudoise.vaudoiseback.persistence.readmodel;
+
+import com.vaudoise.vaudoiseback.persistence.analytics.ContractGrouping;
+import com.vaudoise.vaudoiseback.persistence.entities.enums.ClientType;
+import com.vaudoise.vaudoiseback.persistence.events.ChangeType;
+import com.vaudoise.vaudoiseback.persistence.events.ClientChangedEvent;
+import com.vaudoise.vaudoiseback.persistence.events.ContractChangedEvent;
+import com.vaudoise.vaudoiseback.persistence.repositories.ClientRepository;
+import com.vaudoise.vaudoiseback.persistence.repositories.ContractRepository;
+import com.vaudoise.vaudoiseback.rest.dto.ContractAnalyticsGroup;
+import com.vaudoise.vaudoiseback.rest.dto.ContractResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Columnar in-memory copy of the contracts, for analytics.
+ * <p>
+ * Every contract with a client is a row spread over primitive columns: client id, client type, start and end epoch
+ * day, start month and cost in cents. Aggregations scan the columns in parallel chunks on the common fork-join pool
+ * and never create entities or {@code BigDecimal}s per row. The snapshot is loaded at startup and kept current by
+ * the contract and client change events; until it is ready, callers query the database instead.
+ */
+@Component
+@Slf4j
+public class ContractSnapshot {
+
+    /**
+     * End epoch day of contracts without end date
+     */
+    private static final int NO_END = Integer.MAX_VALUE;
+
+    private static final byte NO_TYPE = -1;
+
+    private static final ClientType[] CLIENT_TYPES = ClientType.values();
+
+    /**
+     * Percentiles reported for each group, in increasing order
+     */
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99};
+
+    /**
+     * Rows scanned by a single fork-join task
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final ContractRepository contractRepository;
+    private final ClientRepository clientRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> rowsById = new HashMap<>();
+    private final Map<Long, LongPostingList> contractIdsByClient = new HashMap<>();
+    private final Map<Long, ClientType> clientTypes = new HashMap<>();
+    private final List<Object> changedWhileBuilding = new ArrayList<>();
+    private long[] ids = new long[1024];
+    private long[] clientIds = new long[1024];
+    private byte[] types = new byte[1024];
+    private int[] startDays = new int[1024];
+    private int[] endDays = new int[1024];
+    private int[] startMonths = new int[1024];
+    private long[] costCents = new long[1024];
+    private int size;
+    private int minStartMonth = Integer.MAX_VALUE;
+    private int maxStartMonth = Integer.MIN_VALUE;
+    private volatile boolean building;
+    private volatile boolean ready;
+
+    public ContractSnapshot(ContractRepository contractRepository, ClientRepository clientRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${vaudoise.snapshot.enabled:true}") boolean enabled) {
+        this.contractRepository = contractRepository;
+        this.clientRepository = clientRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Loads every contract from the database. Changes committed while loading are replayed afterwards, rows are
+     * upserted and removed by id so replaying a change already loaded is harmless. A failed load is retried by
+     * {@link #retry()}.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) return;
+        lock.writeLock().lock();
+        try {
+            if (building || ready) return;
+            building = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long start = System.currentTimeMillis();
+        try {
+            // nothing else touches the columns until the snapshot is ready, changes are only queued meanwhile
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> stream = clientRepository.streamTypes()) {
+                    stream.forEach(row -> clientTypes.put((Long) row[0], (ClientType) row[1]));
+                }
+                try (Stream<ContractResponse> stream = contractRepository.streamResponsesWithClient()) {
+                    stream.forEach(this::put);
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                clear();
+                building = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("Contract snapshot could not be built, retrying later", e);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            changedWhileBuilding.forEach(this::apply);
+            changedWhileBuilding.clear();
+            building = false;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Contract snapshot built: {} contracts in {} ms", size, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Builds the snapshot again if the previous build failed.
+     */
+    @Scheduled(cron = "${vaudoise.snapshot.retry-cron:0 */5 * * * *}")
+    public void retry() {
+        if (!ready && !building) build();
+    }
+
+    @TransactionalEventListener
+    public void onContractChanged(ContractChangedEvent event) {
+        onChanged(event);
+    }
+
+    @TransactionalEventListener
+    public void onClientChanged(ClientChangedEvent event) {
+        onChanged(event);
+    }
+
+    /**
+     * Returns the count, total, average and cost percentiles of the contracts in force on the given date (started
+     * on or before it, and not ended), one row per group.
+     *
+     * @param grouping Dimension to group by
+     * @param asOf     Date on which the contracts are in force
+     * @return Groups ordered by key, or empty if the snapshot is not built yet
+     */
+    public Optional<List<ContractAnalyticsGroup>> aggregateActive(ContractGrouping grouping, LocalDate asOf) {
+        if (!ready) return Optional.empty();
+        int day = (int) asOf.toEpochDay();
+        lock.readLock().lock();
+        try {
+            int rows = size;
+            int keyOffset = grouping == ContractGrouping.START_MONTH ? minStartMonth : 0;
+            int keys = switch (grouping) {
+                case CLIENT_TYPE -> CLIENT_TYPES.length;
+                case START_MONTH -> rows == 0 ? 0 : maxStartMonth - minStartMonth + 1;
+                case COST_BAND -> ContractGrouping.costBandCount();
+            };
+            int chunks = (rows + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            Partial total = IntStream.range(0, chunks)
+                    .parallel()
+                    .mapToObj(chunk -> scan(grouping, day, keys, keyOffset,
+                            chunk * CHUNK_SIZE, Math.min(rows, (chunk + 1) * CHUNK_SIZE)))
+                    .reduce(Partial::merge)
+                    .orElseGet(() -> new Partial(keys));
+            List<ContractAnalyticsGroup> groups = total.groups(key -> label(grouping, key + keyOffset));
+            if (grouping == ContractGrouping.CLIENT_TYPE) {
+                // months and cost bands are already in key order, client types are listed by name
+                groups.sort(Comparator.comparing(ContractAnalyticsGroup::getKey));
+            }
+            return Optional.of(groups);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------------- Scan ----------------
+
+    private Partial scan(ContractGrouping grouping, int day, int keys, int keyOffset, int from, int to) {
+        Partial partial = new Partial(keys);
+        for (int row = from; row < to; row++) {
+            if (types[row] == NO_TYPE || startDays[row] > day || endDays[row] <= day) continue;
+            int key = switch (grouping) {
+                case CLIENT_TYPE -> types[row];
+                case START_MONTH -> startMonths[row] - keyOffset;
+                case COST_BAND -> ContractGrouping.costBandIndex(costCents[row]);
+            };
+            partial.add(key, costCents[row]);
+        }
+        return partial;
+    }
+
+    private static String label(ContractGrouping grouping, int key) {
+        return switch (grouping) {
+            case CLIENT_TYPE -> CLIENT_TYPES[key].name();
+            case START_MONTH -> YearMonth.of(Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1).toString();
+            case COST_BAND -> ContractGrouping.costBandLabel(key);
+        };
+    }
+
+    /**
+     * Per-group count, sum and costs of a range of rows.
+     */
+    private static final class Partial {
+        private final long[] counts;
+        private final long[] sums;
+        private final long[][] costs;
+
+        Partial(int keys) {
+            this.counts = new long[keys];
+            this.sums = new long[keys];
+            this.costs = new long[keys][];
+        }
+
+        void add(int key, long cents) {
+            long[] values = costs[key];
+            if (values == null) {
+                values = costs[key] = new long[16];
+            } else if (counts[key] == values.length) {
+                values = costs[key] = Arrays.copyOf(values, values.length * 2);
+            }
+            values[(int) counts[key]] = cents;
+            counts[key]++;
+            sums[key] += cents;
+        }
+
+        Partial merge(Partial other) {
+            for (int key = 0; key < counts.length; key++) {
+                if (other.counts[key] == 0) continue;
+                int count = (int) counts[key];
+                int otherCount = (int) other.counts[key];
+                long[] values = costs[key] == null ? new long[otherCount] : Arrays.copyOf(costs[key], count + otherCount);
+                System.arraycopy(other.costs[key], 0, values, count, otherCount);
+                costs[key] = values;
+                counts[key] += otherCount;
+                sums[key] += other.sums[key];
+            }
+            return this;
+        }
+
+        List<ContractAnalyticsGroup> groups(IntFunction<String> labels) {
+            List<ContractAnalyticsGroup> groups = new ArrayList<>();
+            for (int key = 0; key < counts.length; key++) {
+                int count = (int) counts[key];
+                if (count == 0) continue;
+                BigDecimal[] percentiles = percentiles(costs[key], count);
+                groups.add(new ContractAnalyticsGroup(
+                        labels.apply(key),
+                        count,
+                        BigDecimal.valueOf(sums[key], 2),
+                        BigDecimal.valueOf(sums[key], 2).divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP),
+                        percentiles[0],
+                        percentiles[1],
+                        percentiles[2]
+                ));
+            }
+            return groups;
+        }
+
+        /**
+         * Continuous percentiles, interpolated like SQL {@code PERCENTILE_CONT}. The values are partially ordered
+         * by successive selections instead of being sorted, as each percentile only needs two order statistics.
+         */
+        private static BigDecimal[] percentiles(long[] values, int count) {
+            BigDecimal[] result = new BigDecimal[PERCENTILES.length];
+            int from = 0;
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                double position = (count - 1) * PERCENTILES[i];
+                int lower = (int) position;
+                select(values, from, count - 1, lower);
+                long low = values[lower];
+                long high = low;
+                if (lower + 1 < count) {
+                    high = Long.MAX_VALUE;
+                    for (int j = lower + 1; j < count; j++) high = Math.min(high, values[j]);
+                }
+                double cents = low + (high - low) * (position - lower);
+                result[i] = BigDecimal.valueOf(cents).movePointLeft(2).setScale(2, RoundingMode.HALF_UP);
+                // values before lower are not greater, the next percentile is searched after it
+                from = lower;
+            }
+            return result;
+        }
+
+        /**
+         * Moves the k-th smallest value of the range to index k, smaller values before it and greater values after.
+         */
+        private static void select(long[] values, int left, int right, int k) {
+            while (right > left) {
+                int mid = (left + right) >>> 1;
+                long pivot = Math.max(Math.min(values[left], values[mid]),
+                        Math.min(Math.max(values[left], values[mid]), values[right]));
+                int i = left;
+                int j = right;
+                while (i <= j) {
+                    while (values[i] < pivot) i++;
+                    while (values[j] > pivot) j--;
+                    if (i <= j) {
+                        long swap = values[i];
+                        values[i++] = values[j];
+                        values[j--] = swap;
+                    }
+                }
+                if (k <= j) {
+                    right = j;
+                } else if (k >= i) {
+                    left = i;
+                } else {
+                    return;
+                }
+            }
+        }
+    }
+
+    // ---------------- Maintenance ----------------
+
+    private void onChanged(Object event) {
+        if (!enabled) return;
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                // a build not started yet reads the change from the database
+                if (building) changedWhileBuilding.add(event);
+                return;
+            }
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // callers hold the write lock
+    private void apply(Object event) {
+        if (event instanceof ContractChangedEvent contractEvent) {
+            if (contractEvent.getBefore() != null) {
+                remove(contractEvent.getBefore().getId());
+            }
+            if (contractEvent.getAfter() != null) {
+                put(contractEvent.getAfter());
+            }
+        } else if (event instanceof ClientChangedEvent clientEvent) {
+            Long clientId = clientEvent.getClient().getId();
+            if (clientEvent.getType() != ChangeType.DELETED) {
+                // a new client has no contract yet and the type of a client never changes, no row to update
+                clientTypes.put(clientId, clientEvent.getClient().getType());
+                return;
+            }
+            // contracts are removed by the database cascade, no contract event is published for them
+            clientTypes.remove(clientId);
+            LongPostingList contractIds = contractIdsByClient.get(clientId);
+            if (contractIds != null) {
+                for (long contractId : contractIds.toArray()) remove(contractId);
+            }
+        }
+    }
+
+    // callers hold the write lock
+    private void put(ContractResponse contract) {
+        if (contract.getClientId() == null) {
+            remove(contract.getId());
+            return;
+        }
+        Integer existing = rowsById.get(contract.getId());
+        int row;
+        if (existing != null) {
+            row = existing;
+            if (clientIds[row] != contract.getClientId()) unindex(clientIds[row], contract.getId());
+        } else {
+            ensureCapacity(size + 1);
+            row = size++;
+            rowsById.put(contract.getId(), row);
+        }
+        LocalDate start = contract.getStartDate();
+        int startMonth = start.getYear() * 12 + start.getMonthValue() - 1;
+        ids[row] = contract.getId();
+        clientIds[row] = contract.getClientId();
+        types[row] = typeOf(contract.getClientId());
+        startDays[row] = (int) start.toEpochDay();
+        endDays[row] = contract.getEndDate() == null ? NO_END : (int) contract.getEndDate().toEpochDay();
+        startMonths[row] = startMonth;
+        costCents[row] = contract.getCost().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        minStartMonth = Math.min(minStartMonth, startMonth);
+        maxStartMonth = Math.max(maxStartMonth, startMonth);
+        contractIdsByClient.computeIfAbsent(contract.getClientId(), client -> new LongPostingList()).add(contract.getId());
+    }
+
+    // callers hold the write lock, the last row is moved into the freed one
+    private void remove(Long id) {
+        Integer removed = rowsById.remove(id);
+        if (removed == null) return;
+        int row = removed;
+        unindex(clientIds[row], id);
+        int last = --size;
+        if (row != last) {
+            ids[row] = ids[last];
+            clientIds[row] = clientIds[last];
+            types[row] = types[last];
+            startDays[row] = startDays[last];
+            endDays[row] = endDays[last];
+            startMonths[row] = startMonths[last];
+            costCents[row] = costCents[last];
+            rowsById.put(ids[row], row);
+        }
+    }
+
+    // callers hold the write lock
+    private void unindex(long clientId, long contractId) {
+        LongPostingList contractIds = contractIdsByClient.get(clientId);
+        if (contractIds == null) return;
+        contractIds.remove(contractId);
+        if (contractIds.isEmpty()) contractIdsByClient.remove(clientId);
+    }
+
+    // callers hold the write lock
+    private void clear() {
+        rowsById.clear();
+        contractIdsByClient.clear();
+        clientTypes.clear();
+        changedWhileBuilding.clear();
+        size = 0;
+        minStartMonth = Integer.MAX_VALUE;
+        maxStartMonth = Integer.MIN_VALUE;
+    }
+
+    private byte typeOf(Long clientId) {
+        ClientType type = clientTypes.get(clientId);
+        return type == null ? NO_TYPE : (byte) type.ordinal();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) return;
+        int grown = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, grown);
+        clientIds = Arrays.copyOf(clientIds, grown);
+        types = Arrays.copyOf(types, grown);
+        startDays = Arrays.copyOf(startDays, grown);
+        endDays = Arrays.copyOf(endDays, grown);
+        startMonths = Arrays.copyOf(startMonths, grown);
+        costCents = Arrays.copyOf(costCents, grown);
+    }
+}
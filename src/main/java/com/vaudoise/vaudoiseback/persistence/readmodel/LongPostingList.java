@@ -0,0 +1,85 @@
+package com.vaudoise.vaudoiseback.persistence.readmodel;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of ids backed by a primitive long array. Not thread safe, callers guard it.
+ */
+public class LongPostingList {
+
+    private long[] ids = new long[4];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds an id, keeping the list sorted. Appending a higher id, the common case when loading by id, is O(1).
+     */
+    public void add(long id) {
+        if (size > 0 && ids[size - 1] < id) {
+            ensureCapacity();
+            ids[size++] = id;
+            return;
+        }
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) return;
+        int insertion = -index - 1;
+        ensureCapacity();
+        System.arraycopy(ids, insertion, ids, insertion + 1, size - insertion);
+        ids[insertion] = id;
+        size++;
+    }
+
+    public void remove(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0) return;
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+    }
+
+    /**
+     * Returns a copy of the ids.
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Keeps only the ids of the given sorted array that are in this list.
+     *
+     * @param candidates Sorted ids
+     * @param length     Number of valid entries in candidates
+     * @return Number of ids kept, compacted at the start of candidates
+     */
+    public int retainIn(long[] candidates, int length) {
+        int kept = 0;
+        int i = 0;
+        int j = 0;
+        while (i < length && j < size) {
+            long a = candidates[i];
+            long b = ids[j];
+            if (a == b) {
+                candidates[kept++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return kept;
+    }
+
+    private void ensureCapacity() {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1) + 1);
+        }
+    }
+}
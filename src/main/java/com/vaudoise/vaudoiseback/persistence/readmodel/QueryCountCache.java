@@ -0,0 +1,69 @@
+package com.vaudoise.vaudoiseback.persistence.readmodel;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vaudoise.vaudoiseback.persistence.entities.Client;
+import com.vaudoise.vaudoiseback.persistence.entities.Contract;
+import com.vaudoise.vaudoiseback.persistence.events.ClientChangedEvent;
+import com.vaudoise.vaudoiseback.persistence.events.ContractChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived cache of list totals, keyed by entity and by the filter that produced the list.
+ * <p>
+ * Every committed write bumps the generation of the entities it can change, which makes all their cached totals
+ * unreachable at once; they then age out with the TTL. A count that was running while a write committed may still
+ * be cached with the new generation, so a total can be stale for at most the TTL.
+ */
+@Component
+public class QueryCountCache {
+
+    private final Cache<List<Object>, Long> counts;
+    private final Map<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public QueryCountCache(@Value("${vaudoise.count-cache.ttl:30s}") Duration ttl,
+                           @Value("${vaudoise.count-cache.max-size:10000}") long maxSize) {
+        this.counts = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * Returns the cached total of the list of entities matching the filter, counting it on a miss.
+     *
+     * @param entityClass Listed entity
+     * @param filter      Value identifying the filter, must implement equals and hashCode
+     * @param counter     Counts the matching entities
+     * @return Total
+     */
+    public long count(Class<?> entityClass, Object filter, LongSupplier counter) {
+        List<Object> key = List.of(entityClass, generation(entityClass).get(), filter);
+        return counts.get(key, ignored -> counter.getAsLong());
+    }
+
+    @TransactionalEventListener
+    public void onClientChanged(ClientChangedEvent event) {
+        generation(Client.class).incrementAndGet();
+        // deleting a client deletes its contracts
+        generation(Contract.class).incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void onContractChanged(ContractChangedEvent event) {
+        generation(Contract.class).incrementAndGet();
+    }
+
+    private AtomicLong generation(Class<?> entityClass) {
+        return generations.computeIfAbsent(entityClass, ignored -> new AtomicLong());
+    }
+}
@@ -0,0 +1,19 @@
+package com.vaudoise.vaudoiseback.persistence.repositories;
+
+import com.vaudoise.vaudoiseback.persistence.entities.Client;
+
+import java.util.List;
+
+/**
+ * Bulk writes of clients that bypass the persistence context.
+ */
+public interface ClientBatchRepository {
+
+    /**
+     * Inserts the given new clients with a single JDBC batch. Ids are assigned by the database and are not set
+     * on the given clients, reload them by uuid when needed.
+     *
+     * @param clients New clients, with their uuid set
+     */
+    void insertAll(List<Client> clients);
+}
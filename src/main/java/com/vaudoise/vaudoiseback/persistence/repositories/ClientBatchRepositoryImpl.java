@@ -0,0 +1,46 @@
+package com.vaudoise.vaudoiseback.persistence.repositories;
+
+import com.vaudoise.vaudoiseback.persistence.entities.Client;
+import com.vaudoise.vaudoiseback.persistence.entities.CompanyClient;
+import com.vaudoise.vaudoiseback.persistence.entities.PersonClient;
+import com.vaudoise.vaudoiseback.persistence.entities.enums.ClientType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Types;
+import java.util.List;
+
+public class ClientBatchRepositoryImpl implements ClientBatchRepository {
+
+    private static final String INSERT = "INSERT INTO vaudoise_clients (uuid, name, email, phone, client_type, birth_date, company_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ClientBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(List<Client> clients) {
+        jdbcTemplate.batchUpdate(INSERT, clients, clients.size(), (ps, client) -> {
+            ps.setString(1, client.getUuid().toString());
+            ps.setString(2, client.getName());
+            ps.setString(3, client.getEmail());
+            ps.setString(4, client.getPhone());
+            if (client instanceof PersonClient person) {
+                ps.setString(5, ClientType.PERSON.name());
+                if (person.getBirthDate() != null) {
+                    ps.setDate(6, Date.valueOf(person.getBirthDate()));
+                } else {
+                    ps.setNull(6, Types.DATE);
+                }
+                ps.setNull(7, Types.VARCHAR);
+            } else if (client instanceof CompanyClient company) {
+                ps.setString(5, ClientType.COMPANY.name());
+                ps.setNull(6, Types.DATE);
+                ps.setString(7, company.getCompanyId());
+            }
+        });
+    }
+}
@@ -0,0 +1,42 @@
+package com.vaudoise.vaudoiseback.persistence.repositories;
+
+import com.vaudoise.vaudoiseback.persistence.entities.Client;
+import com.vaudoise.vaudoiseback.rest.dto.ClientResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Read paths that select {@link ClientResponse} directly from the query, without loading entities.
+ */
+public interface ClientProjectionRepository {
+
+    /**
+     * @param spec Filter to apply, may be null
+     */
+    Page<ClientResponse> findResponses(Specification<Client> spec, Pageable pageable);
+
+    /**
+     * @param spec  Filter to apply, may be null
+     * @param total Total of the rows matching the filter, only asked for when it cannot be deduced from the page
+     */
+    Page<ClientResponse> findResponses(Specification<Client> spec, Pageable pageable, LongSupplier total);
+
+    /**
+     * Returns a slice without counting the rows matching the filter.
+     *
+     * @param spec Filter to apply, may be null
+     */
+    Slice<ClientResponse> findResponseSlice(Specification<Client> spec, Pageable pageable);
+
+    /**
+     * @param spec  Filter to apply, may be null
+     * @param limit Maximum number of rows, or -1 for all
+     */
+    List<ClientResponse> findResponses(Specification<Client> spec, Sort sort, int limit);
+}
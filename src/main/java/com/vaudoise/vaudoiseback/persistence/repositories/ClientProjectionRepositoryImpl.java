@@ -0,0 +1,54 @@
+package com.vaudoise.vaudoiseback.persistence.repositories;
+
+import com.vaudoise.vaudoiseback.persistence.entities.Client;
+import com.vaudoise.vaudoiseback.persistence.entities.CompanyClient;
+import com.vaudoise.vaudoiseback.persistence.entities.PersonClient;
+import com.vaudoise.vaudoiseback.rest.dto.ClientResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+public class ClientProjectionRepositoryImpl implements ClientProjectionRepository {
+
+    private final ProjectionQuery<Client, ClientResponse> query;
+
+    public ClientProjectionRepositoryImpl(EntityManager entityManager) {
+        this.query = new ProjectionQuery<>(entityManager, Client.class, ClientResponse.class, (root, builder) -> new Selection<?>[]{
+                root.get("id"),
+                root.get("uuid"),
+                root.get("type"),
+                root.get("name"),
+                root.get("email"),
+                root.get("phone"),
+                builder.treat(root, PersonClient.class).get("birthDate"),
+                builder.treat(root, CompanyClient.class).get("companyId")
+        });
+    }
+
+    @Override
+    public Page<ClientResponse> findResponses(Specification<Client> spec, Pageable pageable) {
+        return query.page(spec, pageable);
+    }
+
+    @Override
+    public Page<ClientResponse> findResponses(Specification<Client> spec, Pageable pageable, LongSupplier total) {
+        return query.page(spec, pageable, total);
+    }
+
+    @Override
+    public Slice<ClientResponse> findResponseSlice(Specification<Client> spec, Pageable pageable) {
+        return query.slice(spec, pageable);
+    }
+
+    @Override
+    public List<ClientResponse> findResponses(Specification<Client> spec, Sort sort, int limit) {
+        return query.list(spec, sort, 0, limit);
+    }
+}
@@ -1,12 +1,23 @@
 package com.vaudoise.vaudoiseback.persistence.repositories;
 
 import com.vaudoise.vaudoiseback.persistence.entities.Client;
+import com.vaudoise.vaudoiseback.persistence.readmodel.ClientSearchDocument;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface ClientRepository extends BaseJpaRepository<Client, Long> {
+public interface ClientRepository extends BaseJpaRepository<Client, Long>, ClientBatchRepository, ClientProjectionRepository {
 
     @Query("Select c from Client c where c.email = ?1")
     Optional<Client> findByEmail(String email);
@@ -14,12 +25,64 @@ public interface ClientRepository extends BaseJpaRepository<Client, Long> {
     @Query("Select case when count(c)> 0 then true else false end from Client c where c.email = ?1")
     Boolean existsByEmail(String email);
 
+    @Query("Select c.email from Client c where c.email in ?1")
+    List<String> findExistingEmails(Collection<String> emails);
+
+    @Query("Select c.companyId from CompanyClient c where c.companyId in ?1")
+    List<String> findExistingCompanyIds(Collection<String> companyIds);
+
+    @Query("Select c.id from Client c where c.id in ?1")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    @Query("Select c.uuid, c.id from Client c where c.uuid in ?1")
+    List<Object[]> findIdsByUuidIn(Collection<UUID> uuids);
+
+    @Query("Select c.version from Client c where c.id = ?1")
+    Optional<Long> findVersionById(Long id);
+
     @Query("Select c from Client c where c.phone = ?1")
     Optional<Client> findByPhone(String phone);
 
     @Query("Select c from Client c where c.name = ?1")
     Optional<Client> findByName(String name);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("Select c from Client c order by c.id")
+    Stream<Client> streamAll();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("Select new com.vaudoise.vaudoiseback.persistence.readmodel.ClientSearchDocument(c.id, c.name, c.email, c.phone) from Client c order by c.id")
+    Stream<ClientSearchDocument> streamSearchDocuments();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("Select c.id, c.type from Client c")
+    Stream<Object[]> streamTypes();
+
+    /**
+     * Clients modified after the (since, afterId) position and at the latest at until, in (modifiedAt, id) order.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("Select c from Client c where c.modifiedAt <= :until " +
+            "and (c.modifiedAt > :since or (c.modifiedAt = :since and c.id > :afterId)) " +
+            "order by c.modifiedAt, c.id")
+    List<Client> findModifiedAfter(@Param("since") LocalDateTime since, @Param("afterId") Long afterId,
+                                   @Param("until") LocalDateTime until, Limit limit);
+
     @Modifying
     @Query("delete from Client c where c.id = ?1")
     void delete(Long entityId);
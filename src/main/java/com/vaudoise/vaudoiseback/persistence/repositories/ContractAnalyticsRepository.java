@@ -0,0 +1,22 @@
+package com.vaudoise.vaudoiseback.persistence.repositories;
+
+import com.vaudoise.vaudoiseback.persistence.analytics.ContractGrouping;
+import com.vaudoise.vaudoiseback.rest.dto.ContractAnalyticsGroup;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Aggregations over contracts computed by the database, without loading any contract.
+ */
+public interface ContractAnalyticsRepository {
+
+    /**
+     * Returns the count, total, average and cost percentiles of the contracts in force on the given date
+     * (started on or before it, and not ended), one row per group.
+     *
+     * @param grouping Dimension to group by
+     * @param asOf     Date on which the contracts are in force
+     */
+    List<ContractAnalyticsGroup> aggregateActive(ContractGrouping grouping, LocalDate asOf);
+}
@@ -0,0 +1,65 @@
+package com.vaudoise.vaudoiseback.persistence.repositories;
+
+import com.vaudoise.vaudoiseback.persistence.analytics.ContractGrouping;
+import com.vaudoise.vaudoiseback.rest.dto.ContractAnalyticsGroup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+public class ContractAnalyticsRepositoryImpl implements ContractAnalyticsRepository {
+
+    /**
+     * One statement per grouping. MariaDB only has PERCENTILE_CONT as a window function, so the percentiles are
+     * computed per partition in a derived table and collapsed by the outer GROUP BY.
+     */
+    private static final Map<ContractGrouping, String> QUERIES = new EnumMap<>(ContractGrouping.class);
+
+    static {
+        QUERIES.put(ContractGrouping.CLIENT_TYPE, query("cl.client_type", "grp"));
+        QUERIES.put(ContractGrouping.START_MONTH, query("DATE_FORMAT(c.start_date, '%Y-%m')", "grp"));
+        QUERIES.put(ContractGrouping.COST_BAND, query(ContractGrouping.costBandSql("c.cost"), "MIN(t.cost)"));
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ContractAnalyticsRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<ContractAnalyticsGroup> aggregateActive(ContractGrouping grouping, LocalDate asOf) {
+        Date date = Date.valueOf(asOf);
+        return jdbcTemplate.query(QUERIES.get(grouping), (rs, rowNum) -> new ContractAnalyticsGroup(
+                rs.getString("grp"),
+                rs.getLong("contracts"),
+                rs.getBigDecimal("total"),
+                money(rs.getBigDecimal("average")),
+                money(rs.getBigDecimal("p50")),
+                money(rs.getBigDecimal("p90")),
+                money(rs.getBigDecimal("p99"))
+        ), date, date);
+    }
+
+    private static String query(String group, String orderBy) {
+        String partition = " OVER (PARTITION BY " + group + ")";
+        return "SELECT t.grp, COUNT(*) AS contracts, SUM(t.cost) AS total, AVG(t.cost) AS average, " +
+                "MIN(t.p50) AS p50, MIN(t.p90) AS p90, MIN(t.p99) AS p99 " +
+                "FROM (SELECT " + group + " AS grp, c.cost, " +
+                "PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY c.cost)" + partition + " AS p50, " +
+                "PERCENTILE_CONT(0.9) WITHIN GROUP (ORDER BY c.cost)" + partition + " AS p90, " +
+                "PERCENTILE_CONT(0.99) WITHIN GROUP (ORDER BY c.cost)" + partition + " AS p99 " +
+                "FROM vaudoise_contracts c JOIN vaudoise_clients cl ON cl.id = c.client_id " +
+                "WHERE c.start_date <= ? AND (c.end_date IS NULL OR c.end_date > ?)) t " +
+                "GROUP BY t.grp ORDER BY " + orderBy;
+    }
+
+    private static BigDecimal money(BigDecimal value) {
+        return value == null ? null : value.setScale(2, RoundingMode.HALF_UP);
+    }
+}
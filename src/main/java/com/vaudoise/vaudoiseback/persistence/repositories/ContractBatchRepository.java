@@ -0,0 +1,19 @@
+package com.vaudoise.vaudoiseback.persistence.repositories;
+
+import com.vaudoise.vaudoiseback.persistence.entities.Contract;
+
+import java.util.List;
+
+/**
+ * Bulk writes of contracts that bypass the persistence context.
+ */
+public interface ContractBatchRepository {
+
+    /**
+     * Inserts the given new contracts with a single JDBC batch. Ids are assigned by the database and are not set
+     * on the given contracts, reload them by uuid when needed.
+     *
+     * @param contracts New contracts, with their uuid set
+     */
+    void insertAll(List<Contract> contracts);
+}
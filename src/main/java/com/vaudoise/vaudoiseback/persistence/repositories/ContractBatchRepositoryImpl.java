@@ -0,0 +1,39 @@
+package com.vaudoise.vaudoiseback.persistence.repositories;
+
+import com.vaudoise.vaudoiseback.persistence.entities.Contract;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Types;
+import java.util.List;
+
+public class ContractBatchRepositoryImpl implements ContractBatchRepository {
+
+    private static final String INSERT = "INSERT INTO vaudoise_contracts (uuid, start_date, end_date, cost, client_id) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ContractBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(List<Contract> contracts) {
+        jdbcTemplate.batchUpdate(INSERT, contracts, contracts.size(), (ps, contract) -> {
+            ps.setString(1, contract.getUuid().toString());
+            ps.setDate(2, Date.valueOf(contract.getStartDate()));
+            if (contract.getEndDate() != null) {
+                ps.setDate(3, Date.valueOf(contract.getEndDate()));
+            } else {
+                ps.setNull(3, Types.DATE);
+            }
+            ps.setBigDecimal(4, contract.getCost());
+            if (contract.getClient() != null) {
+                ps.setLong(5, contract.getClient().getId());
+            } else {
+                ps.setNull(5, Types.BIGINT);
+            }
+        });
+    }
+}
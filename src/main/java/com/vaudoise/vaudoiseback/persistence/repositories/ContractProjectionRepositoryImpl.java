@@ -0,0 +1,57 @@
+package com.vaudoise.vaudoiseback.persistence.repositories;
+
+import com.vaudoise.vaudoiseback.persistence.entities.Client;
+import com.vaudoise.vaudoiseback.persistence.entities.Contract;
+import com.vaudoise.vaudoiseback.rest.dto.ContractResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+public class ContractProjectionRepositoryImpl implements ContractProjectionRepository {
+
+    private final ProjectionQuery<Contract, ContractResponse> query;
+
+    public ContractProjectionRepositoryImpl(EntityManager entityManager) {
+        this.query = new ProjectionQuery<>(entityManager, Contract.class, ContractResponse.class, (root, builder) -> {
+            Join<Contract, Client> client = root.join("client", JoinType.LEFT);
+            return new Selection<?>[]{
+                    root.get("id"),
+                    root.get("uuid"),
+                    root.get("startDate"),
+                    root.get("endDate"),
+                    root.get("cost"),
+                    client.get("id"),
+                    client.get("name")
+            };
+        });
+    }
+
+    @Override
+    public Page<ContractResponse> findResponses(Specification<Contract> spec, Pageable pageable) {
+        return query.page(spec, pageable);
+    }
+
+    @Override
+    public Page<ContractResponse> findResponses(Specification<Contract> spec, Pageable pageable, LongSupplier total) {
+        return query.page(spec, pageable, total);
+    }
+
+    @Override
+    public Slice<ContractResponse> findResponseSlice(Specification<Contract> spec, Pageable pageable) {
+        return query.slice(spec, pageable);
+    }
+
+    @Override
+    public List<ContractResponse> findResponses(Specification<Contract> spec, Sort sort, int limit) {
+        return query.list(spec, sort, 0, limit);
+    }
+}
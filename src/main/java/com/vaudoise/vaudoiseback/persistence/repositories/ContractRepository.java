@@ -1,14 +1,26 @@
 package com.vaudoise.vaudoiseback.persistence.repositories;
 
 import com.vaudoise.vaudoiseback.persistence.entities.Contract;
+import com.vaudoise.vaudoiseback.persistence.readmodel.ClientContractTotal;
+import com.vaudoise.vaudoiseback.persistence.readmodel.ContractExpiry;
+import com.vaudoise.vaudoiseback.rest.dto.ContractResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface ContractRepository extends BaseJpaRepository<Contract, Long> {
+public interface ContractRepository extends BaseJpaRepository<Contract, Long>, ContractBatchRepository, ContractProjectionRepository,
+        ContractAnalyticsRepository {
     @Query("SELECT c FROM Contract c WHERE c.client.id = ?1")
     List<Contract> findByClientId(Long clientId);
 
@@ -18,6 +30,90 @@ public interface ContractRepository extends BaseJpaRepository<Contract, Long> {
             "AND (c.endDate IS NULL OR c.endDate > CURRENT_DATE)")
     BigDecimal sumActiveContractCostsByClientId(@Param("clientId") Long clientId);
 
+    /**
+     * Active contract totals of the given clients, with a zero total for clients without active contracts.
+     * Ids of clients that do not exist are not returned.
+     */
+    @Query("SELECT new com.vaudoise.vaudoiseback.persistence.readmodel.ClientContractTotal(cl.id, COALESCE(SUM(c.cost), 0)) " +
+            "FROM Client cl LEFT JOIN Contract c ON c.client = cl AND (c.endDate IS NULL OR c.endDate > CURRENT_DATE) " +
+            "WHERE cl.id IN :clientIds " +
+            "GROUP BY cl.id")
+    List<ClientContractTotal> sumActiveContractCostsByClientIdIn(@Param("clientIds") Collection<Long> clientIds);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("SELECT new com.vaudoise.vaudoiseback.persistence.readmodel.ClientContractTotal(c.client.id, SUM(c.cost)) " +
+            "FROM Contract c " +
+            "WHERE c.client IS NOT NULL " +
+            "AND (c.endDate IS NULL OR c.endDate > CURRENT_DATE) " +
+            "GROUP BY c.client.id")
+    Stream<ClientContractTotal> streamActiveContractTotals();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("SELECT new com.vaudoise.vaudoiseback.persistence.readmodel.ContractExpiry(c.id, c.client.id, c.cost, c.endDate) " +
+            "FROM Contract c " +
+            "WHERE c.client IS NOT NULL " +
+            "AND c.endDate > CURRENT_DATE")
+    Stream<ContractExpiry> streamActiveContractExpiries();
+
+    @Query("SELECT new com.vaudoise.vaudoiseback.persistence.readmodel.ContractExpiry(c.id, c.client.id, c.cost, c.endDate) " +
+            "FROM Contract c " +
+            "WHERE c.client.id = :clientId " +
+            "AND c.endDate > CURRENT_DATE")
+    List<ContractExpiry> findActiveContractExpiriesByClientId(@Param("clientId") Long clientId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("SELECT c FROM Contract c LEFT JOIN FETCH c.client ORDER BY c.id")
+    Stream<Contract> streamAll();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("SELECT new com.vaudoise.vaudoiseback.rest.dto.ContractResponse(c.id, c.uuid, c.startDate, c.endDate, c.cost, c.client.id, c.client.name) " +
+            "FROM Contract c JOIN c.client")
+    Stream<ContractResponse> streamResponsesWithClient();
+
+    /**
+     * Version of the contract and of its client, whose name is part of the contract representation
+     */
+    @Query("SELECT c.version, cl.version FROM Contract c LEFT JOIN c.client cl WHERE c.id = ?1")
+    List<Object[]> findVersionsById(Long id);
+
+    @Query("SELECT c.id FROM Contract c WHERE c.client.id = ?1")
+    List<Long> findIdsByClientId(Long clientId);
+
+    @Query("SELECT c FROM Contract c LEFT JOIN FETCH c.client WHERE c.id IN ?1")
+    List<Contract> findAllWithClientByIdIn(Collection<Long> ids);
+
+    @Query("SELECT c.uuid, c.id FROM Contract c WHERE c.uuid IN ?1")
+    List<Object[]> findIdsByUuidIn(Collection<UUID> uuids);
+
+    /**
+     * Contracts modified after the (since, afterId) position and at the latest at until, in (modifiedAt, id) order.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("SELECT c FROM Contract c LEFT JOIN FETCH c.client WHERE c.modifiedAt <= :until " +
+            "AND (c.modifiedAt > :since OR (c.modifiedAt = :since AND c.id > :afterId)) " +
+            "ORDER BY c.modifiedAt, c.id")
+    List<Contract> findModifiedAfter(@Param("since") LocalDateTime since, @Param("afterId") Long afterId,
+                                     @Param("until") LocalDateTime until, Limit limit);
+
     @Modifying
     @Query("DELETE FROM Contract c WHERE c.id = ?1")
     void delete(Long entityId);
@@ -0,0 +1,112 @@
+package com.vaudoise.vaudoiseback.persistence.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Criteria query that selects a DTO through its constructor instead of loading entities. Only the selected columns
+ * are read, and nothing is added to the persistence context, so there is no dirty-checking snapshot to keep.
+ *
+ * @param <E> Queried entity
+ * @param <D> Selected DTO
+ */
+final class ProjectionQuery<E, D> {
+
+    private final EntityManager entityManager;
+    private final Class<E> entityClass;
+    private final Class<D> dtoClass;
+    private final BiFunction<Root<E>, CriteriaBuilder, Selection<?>[]> selection;
+
+    /**
+     * @param selection Constructor arguments of the DTO, in order
+     */
+    ProjectionQuery(EntityManager entityManager, Class<E> entityClass, Class<D> dtoClass,
+                    BiFunction<Root<E>, CriteriaBuilder, Selection<?>[]> selection) {
+        this.entityManager = entityManager;
+        this.entityClass = entityClass;
+        this.dtoClass = dtoClass;
+        this.selection = selection;
+    }
+
+    /**
+     * Returns a page of DTOs. The count query only runs when the total cannot be deduced from the page.
+     */
+    Page<D> page(Specification<E> spec, Pageable pageable) {
+        return page(spec, pageable, () -> count(spec));
+    }
+
+    /**
+     * Returns a page of DTOs, asking the given supplier for the total when it cannot be deduced from the page.
+     */
+    Page<D> page(Specification<E> spec, Pageable pageable, LongSupplier total) {
+        List<D> content = pageable.isPaged()
+                ? list(spec, pageable.getSort(), (int) pageable.getOffset(), pageable.getPageSize())
+                : list(spec, pageable.getSort(), 0, -1);
+        return PageableExecutionUtils.getPage(content, pageable, total);
+    }
+
+    /**
+     * Returns a slice of DTOs without counting. One more row than the page size is read to know whether there
+     * is a next slice.
+     */
+    Slice<D> slice(Specification<E> spec, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(list(spec, pageable.getSort(), 0, -1), pageable, false);
+        }
+        List<D> content = list(spec, pageable.getSort(), (int) pageable.getOffset(), pageable.getPageSize() + 1);
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    /**
+     * Returns the DTOs matching the specification.
+     *
+     * @param spec   Filter to apply, may be null
+     * @param sort   Order of the rows
+     * @param offset Rows to skip
+     * @param limit  Maximum number of rows, or -1 for all
+     */
+    List<D> list(Specification<E> spec, Sort sort, int offset, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<D> query = builder.createQuery(dtoClass);
+        Root<E> root = query.from(entityClass);
+        query.select(builder.construct(dtoClass, selection.apply(root, builder)));
+        where(spec, root, query, builder);
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, builder));
+        }
+
+        TypedQuery<D> typedQuery = entityManager.createQuery(query);
+        if (offset > 0) typedQuery.setFirstResult(offset);
+        if (limit >= 0) typedQuery.setMaxResults(limit);
+        return typedQuery.getResultList();
+    }
+
+    long count(Specification<E> spec) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<E> root = query.from(entityClass);
+        query.select(builder.count(root));
+        where(spec, root, query, builder);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private void where(Specification<E> spec, Root<E> root, CriteriaQuery<?> query, CriteriaBuilder builder) {
+        if (spec == null) return;
+        Predicate predicate = spec.toPredicate(root, query, builder);
+        if (predicate != null) query.where(predicate);
+    }
+}
@@ -0,0 +1,54 @@
+package com.vaudoise.vaudoiseback.persistence.repositories;
+
+import com.vaudoise.vaudoiseback.persistence.entities.Tombstone;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Tombstones are copied from the rows about to be deleted, so these methods must run before the deletion
+ * and in the same transaction. The inserts declare the only table they write, otherwise Hibernate evicts every
+ * second-level cache region after a native statement.
+ */
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long>, JpaSpecificationExecutor<Tombstone> {
+
+    /**
+     * Tombstones written after the (since, afterId) position and at the latest at until, in (deletedAt, id) order.
+     */
+    @Query("SELECT t FROM Tombstone t WHERE t.deletedAt <= :until " +
+            "AND (t.deletedAt > :since OR (t.deletedAt = :since AND t.id > :afterId)) " +
+            "ORDER BY t.deletedAt, t.id")
+    List<Tombstone> findWrittenAfter(@Param("since") LocalDateTime since, @Param("afterId") Long afterId,
+                                     @Param("until") LocalDateTime until, Limit limit);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vaudoise_tombstones"))
+    @Query(value = "INSERT INTO vaudoise_tombstones (entity_type, entity_id, uuid, deleted_at) " +
+            "SELECT 'CLIENT', id, uuid, ?2 FROM vaudoise_clients WHERE id = ?1", nativeQuery = true)
+    void recordClient(Long clientId, LocalDateTime deletedAt);
+
+    /**
+     * Records the contracts of a client, removed by the foreign key cascade when the client is deleted.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vaudoise_tombstones"))
+    @Query(value = "INSERT INTO vaudoise_tombstones (entity_type, entity_id, uuid, deleted_at) " +
+            "SELECT 'CONTRACT', id, uuid, ?2 FROM vaudoise_contracts WHERE client_id = ?1", nativeQuery = true)
+    void recordContractsOfClient(Long clientId, LocalDateTime deletedAt);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vaudoise_tombstones"))
+    @Query(value = "INSERT INTO vaudoise_tombstones (entity_type, entity_id, uuid, deleted_at) " +
+            "SELECT 'CONTRACT', id, uuid, ?2 FROM vaudoise_contracts WHERE id IN ?1", nativeQuery = true)
+    void recordContracts(Collection<Long> contractIds, LocalDateTime deletedAt);
+}
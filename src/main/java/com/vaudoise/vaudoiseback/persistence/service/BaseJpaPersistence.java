@@ -1,15 +1,33 @@
 package com.vaudoise.vaudoiseback.persistence.service;
 
 import com.vaudoise.vaudoiseback.config.logging.LogServiceMethod;
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import com.vaudoise.vaudoiseback.persistence.pagination.KeysetCursor;
+import com.vaudoise.vaudoiseback.persistence.pagination.KeysetFetcher;
+import com.vaudoise.vaudoiseback.persistence.pagination.KeysetPageRequest;
+import com.vaudoise.vaudoiseback.persistence.pagination.KeysetProperty;
 import com.vaudoise.vaudoiseback.persistence.repositories.BaseJpaRepository;
 import com.vaudoise.vaudoiseback.persistence.specification.SpecificationUtils;
+import com.vaudoise.vaudoiseback.rest.dto.CursorPage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.util.StringUtils;
 
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
 
 /**
  * Abstract class ready to query and write values from a JPA repository
@@ -20,13 +38,28 @@ import java.lang.reflect.Type;
  */
 @SuppressWarnings("unchecked")
 public abstract class BaseJpaPersistence<R extends BaseJpaRepository<E, ID>, E, ID> {
+    /**
+     * Hard cap on the number of rows a single page may return
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
     /**
      * JPA repository instance
      */
     private final R repository;
 
+    /**
+     * JPA entity class, resolved once from the repository generics
+     */
+    private final Class<E> jpaEntityClass;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     protected BaseJpaPersistence(R repository) {
         this.repository = repository;
+        this.jpaEntityClass = resolveJpaEntityClass(repository);
+        SpecificationUtils.warmUp(jpaEntityClass);
     }
 
     /**
@@ -35,10 +68,25 @@ public abstract class BaseJpaPersistence<R extends BaseJpaRepository<E, ID>, E,
      * @return Page of entities
      */
     @LogServiceMethod
-    public Page<E> baseFindAll(String query, Pageable page) {
+    public Page<E> baseFindAll(String query, Pageable page) throws CustomException {
         if (!StringUtils.hasText(query)) return baseFindAll(page);
-        Specification<E> spec = SpecificationUtils.buildSpecificationFromQuery(query, getJpaEntityClass());
-        return repository.findAll(spec, page);
+        return repository.findAll(baseQuerySpecification(query), page);
+    }
+
+    /**
+     * Returns the specification of a search query, see {@link SpecificationUtils#buildSpecificationFromQuery}.
+     *
+     * @return Search criteria as a Specification, matching everything when the query is empty
+     * @throws CustomException if the query is not valid for the entity
+     */
+    protected Specification<E> baseQuerySpecification(String query) throws CustomException {
+        if (!StringUtils.hasText(query)) return Specification.unrestricted();
+        try {
+            Specification<E> spec = SpecificationUtils.buildSpecificationFromQuery(query, getJpaEntityClass());
+            return spec == null ? Specification.unrestricted() : spec;
+        } catch (IllegalArgumentException ex) {
+            throw new CustomException(ErrorEnum.SEARCH_QUERY, HttpStatus.BAD_REQUEST);
+        }
     }
 
     /**
@@ -51,12 +99,109 @@ public abstract class BaseJpaPersistence<R extends BaseJpaRepository<E, ID>, E,
         return repository.findAll(page);
     }
 
+    /**
+     * Returns the entity with the given uuid. The uuid is the natural id of the entity, so the lookup is served
+     * from the second-level cache when the entity is cached.
+     *
+     * @return Entity, or empty if not found
+     */
+    public Optional<E> baseFindByUuid(UUID uuid) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(getJpaEntityClass()).loadOptional(uuid);
+    }
+
+    /**
+     * Returns a keyset (seek) page of entities which match with given specification, ordered by the requested
+     * property and id. It reads limit + 1 rows to know whether there is a next page and never counts.
+     *
+     * @param spec       Filter to apply, may be null
+     * @param request    Keyset page request
+     * @param properties Allowed sort properties
+     * @param mapper     Entity to row mapper
+     * @param idAccessor Row id accessor, used to build the next cursor
+     * @return Cursor page of rows
+     */
+    @LogServiceMethod
+    public <D> CursorPage<D> baseScroll(Specification<E> spec, KeysetPageRequest request, Map<String, KeysetProperty<D>> properties,
+                                        Function<E, D> mapper, Function<D, Long> idAccessor) throws CustomException {
+        KeysetFetcher<E, D> fetcher = (where, sort, limit) -> repository.findBy(where, query -> query.sortBy(sort).limit(limit).all())
+                .stream()
+                .map(mapper)
+                .toList();
+        return baseScroll(spec, request, properties, fetcher, idAccessor);
+    }
+
+    /**
+     * Returns a keyset (seek) page of rows read by the given fetcher, see
+     * {@link #baseScroll(Specification, KeysetPageRequest, Map, Function, Function)}.
+     *
+     * @param spec       Filter to apply, may be null
+     * @param request    Keyset page request
+     * @param properties Allowed sort properties
+     * @param fetcher    Reads the rows, e.g. as a projection
+     * @param idAccessor Row id accessor, used to build the next cursor
+     * @return Cursor page of rows
+     */
+    @LogServiceMethod
+    public <D> CursorPage<D> baseScroll(Specification<E> spec, KeysetPageRequest request, Map<String, KeysetProperty<D>> properties,
+                                        KeysetFetcher<E, D> fetcher, Function<D, Long> idAccessor) throws CustomException {
+        KeysetProperty<D> property = properties.get(request.getProperty());
+        if (property == null) {
+            throw new CustomException(ErrorEnum.PAGINATION_SORT, HttpStatus.BAD_REQUEST);
+        }
+
+        Specification<E> where = spec;
+        KeysetCursor after = request.getAfter();
+        if (after != null) {
+            Specification<E> keyset;
+            try {
+                keyset = SpecificationUtils.buildKeysetSpecification(property.getName(), request.getDirection(), property.parse(after.getValue()), after.getId());
+            } catch (RuntimeException ex) {
+                throw new CustomException(ErrorEnum.PAGINATION_CURSOR, HttpStatus.BAD_REQUEST);
+            }
+            where = where == null ? keyset : where.and(keyset);
+        }
+
+        Sort sort = Sort.by(request.getDirection(), property.getName());
+        if (!"id".equals(property.getName())) {
+            sort = sort.and(Sort.by(request.getDirection(), "id"));
+        }
+
+        List<D> rows = fetcher.fetch(where == null ? Specification.unrestricted() : where, sort, request.getLimit() + 1);
+
+        boolean hasNext = rows.size() > request.getLimit();
+        List<D> content = hasNext ? rows.subList(0, request.getLimit()) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            D last = content.get(content.size() - 1);
+            nextCursor = new KeysetCursor(property.getName(), request.getDirection(), idAccessor.apply(last),
+                    String.valueOf(property.getAccessor().apply(last))).encode();
+        }
+        return new CursorPage<>(content, content.size(), hasNext, nextCursor);
+    }
+
+    /**
+     * Caps the page size of a page request at {@link #MAX_PAGE_SIZE}.
+     *
+     * @return Capped page request
+     */
+    protected Pageable capPageSize(Pageable page) {
+        if (page.isPaged() && page.getPageSize() > MAX_PAGE_SIZE) {
+            return PageRequest.of(page.getPageNumber(), MAX_PAGE_SIZE, page.getSort());
+        }
+        return page.isPaged() ? page : PageRequest.of(0, MAX_PAGE_SIZE, page.getSort());
+    }
+
     /**
      * Returns used JPA entity class.
      *
      * @return Class<E>
      */
     public Class<E> getJpaEntityClass() {
+        return jpaEntityClass;
+    }
+
+    private static <E> Class<E> resolveJpaEntityClass(BaseJpaRepository<E, ?> repository) {
         Type genericInterface = repository.getClass().getInterfaces()[0];
         return (Class<E>) ((ParameterizedType) ((Class<?>) genericInterface).getGenericInterfaces()[0]).getActualTypeArguments()[0];
     }
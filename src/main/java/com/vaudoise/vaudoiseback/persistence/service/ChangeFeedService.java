@@ -0,0 +1,136 @@
+package com.vaudoise.vaudoiseback.persistence.service;
+
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import com.vaudoise.vaudoiseback.persistence.entities.enums.ChangeEntityType;
+import com.vaudoise.vaudoiseback.persistence.pagination.ChangeCursor;
+import com.vaudoise.vaudoiseback.persistence.repositories.ClientRepository;
+import com.vaudoise.vaudoiseback.persistence.repositories.ContractRepository;
+import com.vaudoise.vaudoiseback.persistence.repositories.TombstoneRepository;
+import com.vaudoise.vaudoiseback.rest.dto.ChangeEntry;
+import com.vaudoise.vaudoiseback.rest.dto.ChangeFeedPage;
+import com.vaudoise.vaudoiseback.rest.dto.ClientResponse;
+import com.vaudoise.vaudoiseback.rest.dto.ContractResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Incremental feed of the client and contract changes, for consumers that keep a copy of the data in sync.
+ * <p>
+ * Upserts are read from the modification time of the rows and deletions from the tombstones, all three sources
+ * through their (time, id) index. Entries are ordered by time, then source, then id, so that a consumer resuming
+ * from the cursor of its last entry never misses nor repeats one. Rows modified within the settle time are not
+ * returned yet: their transaction may still be running, and a later commit with an earlier time would otherwise
+ * end up behind a cursor already handed out.
+ */
+@Service
+@Slf4j
+public class ChangeFeedService {
+
+    /**
+     * Maximum number of entries returned by a single page
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    private static final int CLIENT_SOURCE = 0;
+    private static final int CONTRACT_SOURCE = 1;
+    private static final int TOMBSTONE_SOURCE = 2;
+
+    private static final Comparator<Change> FEED_ORDER = Comparator
+            .comparing((Change change) -> change.getEntry().getModifiedAt())
+            .thenComparingInt(Change::getSource)
+            .thenComparingLong(Change::getRowId);
+
+    private final ClientRepository clientRepository;
+    private final ContractRepository contractRepository;
+    private final TombstoneRepository tombstoneRepository;
+    private final Duration settleTime;
+
+    @Autowired
+    public ChangeFeedService(ClientRepository clientRepository, ContractRepository contractRepository,
+                             TombstoneRepository tombstoneRepository,
+                             @Value("${vaudoise.changes.settle-time:2s}") Duration settleTime) {
+        this.clientRepository = clientRepository;
+        this.contractRepository = contractRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.settleTime = settleTime;
+    }
+
+    /**
+     * Returns the changes made after the cursor.
+     *
+     * @param since Cursor returned by the previous page, null to read from the beginning
+     * @param limit Maximum number of entries
+     * @return Changes in feed order, and the cursor to resume from
+     */
+    @Transactional(readOnly = true)
+    public ChangeFeedPage changes(String since, int limit) throws CustomException {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new CustomException(ErrorEnum.CHANGES_LIMIT, HttpStatus.BAD_REQUEST);
+        }
+        ChangeCursor cursor = since == null || since.isEmpty() ? ChangeCursor.START : ChangeCursor.decode(since);
+        LocalDateTime until = LocalDateTime.now().minus(settleTime);
+
+        // each source returns one row more than the limit, enough to know whether the merged feed goes on
+        Limit fetch = Limit.of(limit + 1);
+        List<Change> changes = new ArrayList<>();
+        clientRepository.findModifiedAfter(cursor.getModifiedAt(), afterId(cursor, CLIENT_SOURCE), until, fetch)
+                .forEach(client -> changes.add(new Change(CLIENT_SOURCE, client.getId(),
+                        new ChangeEntry(ChangeEntityType.CLIENT, ChangeEntry.Operation.UPSERT, client.getId(),
+                                client.getUuid(), client.getModifiedAt(), new ClientResponse(client)))));
+        contractRepository.findModifiedAfter(cursor.getModifiedAt(), afterId(cursor, CONTRACT_SOURCE), until, fetch)
+                .forEach(contract -> changes.add(new Change(CONTRACT_SOURCE, contract.getId(),
+                        new ChangeEntry(ChangeEntityType.CONTRACT, ChangeEntry.Operation.UPSERT, contract.getId(),
+                                contract.getUuid(), contract.getModifiedAt(), new ContractResponse(contract)))));
+        tombstoneRepository.findWrittenAfter(cursor.getModifiedAt(), afterId(cursor, TOMBSTONE_SOURCE), until, fetch)
+                .forEach(tombstone -> changes.add(new Change(TOMBSTONE_SOURCE, tombstone.getId(),
+                        new ChangeEntry(tombstone.getEntityType(), ChangeEntry.Operation.DELETE, tombstone.getEntityId(),
+                                UUID.fromString(tombstone.getUuid()), tombstone.getDeletedAt(), null))));
+        changes.sort(FEED_ORDER);
+
+        boolean hasMore = changes.size() > limit;
+        List<Change> page = hasMore ? changes.subList(0, limit) : changes;
+        ChangeCursor next = cursor;
+        if (!page.isEmpty()) {
+            Change last = page.getLast();
+            next = new ChangeCursor(last.getEntry().getModifiedAt(), last.getSource(), last.getRowId());
+        }
+        return new ChangeFeedPage(page.stream().map(Change::getEntry).toList(), hasMore, next.encode());
+    }
+
+    /**
+     * Id after which rows of the source are read at the cursor time: sources ordered before the cursor one are
+     * done with that time, those ordered after it have not started it.
+     */
+    private static Long afterId(ChangeCursor cursor, int source) {
+        if (source < cursor.getSource()) {
+            return Long.MAX_VALUE;
+        }
+        return source == cursor.getSource() ? cursor.getId() : Long.MIN_VALUE;
+    }
+
+    /**
+     * Entry with its position in the feed, the row id being the tombstone one for a deletion
+     */
+    @Getter
+    @AllArgsConstructor
+    private static final class Change {
+        private final int source;
+        private final long rowId;
+        private final ChangeEntry entry;
+    }
+}
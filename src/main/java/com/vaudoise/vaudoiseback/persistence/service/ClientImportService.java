@@ -0,0 +1,214 @@
+package com.vaudoise.vaudoiseback.persistence.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import com.vaudoise.vaudoiseback.persistence.entities.Client;
+import com.vaudoise.vaudoiseback.persistence.entities.CompanyClient;
+import com.vaudoise.vaudoiseback.persistence.events.ChangeType;
+import com.vaudoise.vaudoiseback.persistence.events.ClientChangedEvent;
+import com.vaudoise.vaudoiseback.persistence.repositories.ClientRepository;
+import com.vaudoise.vaudoiseback.rest.dto.BulkImportError;
+import com.vaudoise.vaudoiseback.rest.dto.BulkImportResponse;
+import com.vaudoise.vaudoiseback.rest.dto.ClientRequest;
+import com.vaudoise.vaudoiseback.rest.dto.ClientResponse;
+import com.vaudoise.vaudoiseback.rest.export.ExportFormat;
+import com.vaudoise.vaudoiseback.rest.export.ImportReader;
+import com.vaudoise.vaudoiseback.rest.export.ImportRow;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Imports clients from a streamed NDJSON or CSV body.
+ * <p>
+ * Rows are validated with the same rules as single creations and inserted with JDBC batches, each batch in its own
+ * transaction. Unique emails and company ids are checked with one query per batch instead of one per row. A batch
+ * rejected by the database is retried row by row, so a single bad row does not reject its neighbours.
+ */
+@Service
+@Slf4j
+public class ClientImportService {
+
+    /**
+     * Rejected rows beyond this number are counted but not reported
+     */
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ClientRepository clientRepository;
+    private final ClientValidator clientValidator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    public ClientImportService(ClientRepository clientRepository, ClientValidator clientValidator,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                               @Value("${vaudoise.import.batch-size:1000}") int batchSize) {
+        this.clientRepository = clientRepository;
+        this.clientValidator = clientValidator;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Imports every row of the input. Valid rows are imported even if others are rejected.
+     *
+     * @param format Input format
+     * @param in     Input stream, read once
+     * @return Import report with the rejected rows
+     */
+    public BulkImportResponse importClients(ExportFormat format, InputStream in) throws IOException {
+        BulkImportResponse response = new BulkImportResponse();
+        Set<String> emails = new HashSet<>();
+        Set<String> companyIds = new HashSet<>();
+        List<PendingClient> batch = new ArrayList<>(batchSize);
+
+        try (ImportReader<ClientRequest> reader = format.reader(in, objectMapper, ClientRequest.class)) {
+            ImportRow<ClientRequest> row;
+            while ((row = reader.next()) != null) {
+                response.setReceived(response.getReceived() + 1);
+                if (!row.isValid()) {
+                    reject(response, row.getLine(), ErrorEnum.IMPORT_ROW, row.getError());
+                    continue;
+                }
+
+                ClientRequest request = row.getValue();
+                Client client;
+                try {
+                    clientValidator.validate(request);
+                    client = ClientService.newClient(request);
+                } catch (CustomException ex) {
+                    reject(response, row.getLine(), ErrorEnum.CLIENT_VALIDATION, null);
+                    continue;
+                }
+
+                String companyId = companyIdKey(client);
+                if (!emails.add(key(client.getEmail())) || (companyId != null && !companyIds.add(companyId))) {
+                    reject(response, row.getLine(), ErrorEnum.CLIENT_DUPLICATE, "Duplicated in the import");
+                    continue;
+                }
+
+                batch.add(new PendingClient(row.getLine(), client));
+                if (batch.size() == batchSize) {
+                    flush(batch, response);
+                    batch.clear();
+                }
+            }
+        }
+        flush(batch, response);
+
+        response.getErrors().sort(Comparator.comparingLong(BulkImportError::getLine));
+        log.info("Bulk client import: {} received, {} imported, {} rejected",
+                response.getReceived(), response.getImported(), response.getRejected());
+        return response;
+    }
+
+    private void flush(List<PendingClient> batch, BulkImportResponse response) {
+        if (batch.isEmpty()) return;
+        List<PendingClient> duplicates = new ArrayList<>();
+        int imported = 0;
+        try {
+            imported = transaction.execute(status -> insert(batch, duplicates));
+        } catch (DataAccessException ex) {
+            log.warn("Bulk client batch rejected, retrying row by row: {}", NestedExceptionUtils.getMostSpecificCause(ex).getMessage());
+            duplicates.clear();
+            for (PendingClient pending : batch) {
+                try {
+                    imported += transaction.execute(status -> insert(List.of(pending), duplicates));
+                } catch (DataAccessException rowEx) {
+                    reject(response, pending.getLine(), ErrorEnum.CLIENT_CREATE,
+                            NestedExceptionUtils.getMostSpecificCause(rowEx).getMessage());
+                }
+            }
+        }
+        duplicates.forEach(pending -> reject(response, pending.getLine(), ErrorEnum.CLIENT_DUPLICATE, null));
+        response.setImported(response.getImported() + imported);
+    }
+
+    /**
+     * Inserts the clients of a batch that do not exist yet, in the current transaction.
+     *
+     * @return Number of clients inserted
+     */
+    private int insert(List<PendingClient> batch, List<PendingClient> duplicates) {
+        Set<String> existingEmails = keys(clientRepository.findExistingEmails(
+                batch.stream().map(pending -> pending.getClient().getEmail()).toList()));
+        List<String> companyIds = batch.stream()
+                .map(pending -> pending.getClient() instanceof CompanyClient company ? company.getCompanyId() : null)
+                .filter(Objects::nonNull)
+                .toList();
+        Set<String> existingCompanyIds = companyIds.isEmpty()
+                ? Set.of()
+                : keys(clientRepository.findExistingCompanyIds(companyIds));
+
+        List<Client> clients = new ArrayList<>(batch.size());
+        for (PendingClient pending : batch) {
+            String companyId = companyIdKey(pending.getClient());
+            if (existingEmails.contains(key(pending.getClient().getEmail()))
+                    || (companyId != null && existingCompanyIds.contains(companyId))) {
+                duplicates.add(pending);
+            } else {
+                clients.add(pending.getClient());
+            }
+        }
+        if (clients.isEmpty()) return 0;
+
+        clientRepository.insertAll(clients);
+
+        // the batch does not return the generated ids, read them back by uuid to publish the changes
+        Map<UUID, Client> byUuid = new HashMap<>();
+        clients.forEach(client -> byUuid.put(client.getUuid(), client));
+        for (Object[] row : clientRepository.findIdsByUuidIn(byUuid.keySet())) {
+            Client client = byUuid.get((UUID) row[0]);
+            client.setId((Long) row[1]);
+            eventPublisher.publishEvent(new ClientChangedEvent(ChangeType.CREATED, new ClientResponse(client)));
+        }
+        return clients.size();
+    }
+
+    private static void reject(BulkImportResponse response, long line, ErrorEnum error, String detail) {
+        response.setRejected(response.getRejected() + 1);
+        if (response.getErrors().size() >= MAX_REPORTED_ERRORS) {
+            response.setErrorsTruncated(true);
+            return;
+        }
+        String message = detail == null ? error.getDescription() : error.getDescription() + ": " + detail;
+        response.getErrors().add(new BulkImportError(line, String.valueOf(error.getCode()), message));
+    }
+
+    private static String companyIdKey(Client client) {
+        return client instanceof CompanyClient company && company.getCompanyId() != null ? key(company.getCompanyId()) : null;
+    }
+
+    // unique columns compare case-insensitively in the database
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> keys(Collection<String> values) {
+        return values.stream().map(ClientImportService::key).collect(Collectors.toSet());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class PendingClient {
+        private final long line;
+        private final Client client;
+    }
+}
@@ -1,17 +1,38 @@
 package com.vaudoise.vaudoiseback.persistence.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaudoise.vaudoiseback.config.logging.LogServiceMethod;
 import com.vaudoise.vaudoiseback.exception.CustomException;
 import com.vaudoise.vaudoiseback.exception.ErrorEnum;
 import com.vaudoise.vaudoiseback.persistence.entities.Client;
 import com.vaudoise.vaudoiseback.persistence.entities.CompanyClient;
 import com.vaudoise.vaudoiseback.persistence.entities.PersonClient;
 import com.vaudoise.vaudoiseback.persistence.entities.enums.ClientType;
+import com.vaudoise.vaudoiseback.persistence.events.ChangeType;
+import com.vaudoise.vaudoiseback.persistence.events.ClientChangedEvent;
+import com.vaudoise.vaudoiseback.persistence.pagination.KeysetPageRequest;
+import com.vaudoise.vaudoiseback.persistence.pagination.KeysetProperty;
+import com.vaudoise.vaudoiseback.persistence.readmodel.ClientContractTotal;
+import com.vaudoise.vaudoiseback.persistence.readmodel.ClientSearchIndex;
+import com.vaudoise.vaudoiseback.persistence.readmodel.QueryCountCache;
 import com.vaudoise.vaudoiseback.persistence.repositories.ClientRepository;
+import com.vaudoise.vaudoiseback.persistence.repositories.TombstoneRepository;
+import com.vaudoise.vaudoiseback.persistence.specification.SpecificationUtils;
+import com.vaudoise.vaudoiseback.rest.EntityTags;
+import com.vaudoise.vaudoiseback.rest.dto.ActiveContractSumsResponse;
 import com.vaudoise.vaudoiseback.rest.dto.ClientRequest;
 import com.vaudoise.vaudoiseback.rest.dto.ClientResponse;
 import com.vaudoise.vaudoiseback.rest.dto.ContractResponse;
+import com.vaudoise.vaudoiseback.rest.dto.CursorPage;
+import com.vaudoise.vaudoiseback.rest.dto.TaggedResponse;
+import com.vaudoise.vaudoiseback.rest.export.ExportFormat;
+import com.vaudoise.vaudoiseback.rest.export.ExportWriter;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.SpecHints;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
@@ -19,55 +40,176 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
+@LogServiceMethod
 @Slf4j
 public class ClientService extends BaseJpaPersistence<ClientRepository, Client, Long> {
 
+    private static final Map<String, KeysetProperty<ClientResponse>> KEYSET_PROPERTIES = KeysetProperty.index(
+            new KeysetProperty<>("id", Long.class, ClientResponse::getId),
+            new KeysetProperty<>("name", String.class, ClientResponse::getName),
+            new KeysetProperty<>("email", String.class, ClientResponse::getEmail),
+            new KeysetProperty<>("phone", String.class, ClientResponse::getPhone)
+    );
+
+    private static final Map<String, Function<ClientResponse, Object>> EXPORT_COLUMNS = exportColumns();
+
+    /**
+     * Above this number of search index matches, sorting by other fields than id falls back to SQL
+     */
+    private static final int MAX_SEARCH_CANDIDATES = 1000;
+
+    /**
+     * Maximum number of clients whose active contract totals can be asked at once
+     */
+    public static final int MAX_SUM_CLIENTS = 1000;
+
     private final ClientRepository clientRepository;
     private final ContractService contractService;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ClientSearchIndex clientSearchIndex;
+    private final ClientValidator clientValidator;
+    private final QueryCountCache queryCountCache;
+    private final TombstoneRepository tombstoneRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public ClientService(ClientRepository clientRepository, ContractService contractService) {
+    public ClientService(ClientRepository clientRepository, ContractService contractService,
+                         EntityManager entityManager, ObjectMapper objectMapper, ClientSearchIndex clientSearchIndex,
+                         ClientValidator clientValidator, QueryCountCache queryCountCache,
+                         TombstoneRepository tombstoneRepository, ApplicationEventPublisher eventPublisher) {
         super(clientRepository);
         this.clientRepository = clientRepository;
         this.contractService = contractService;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.clientSearchIndex = clientSearchIndex;
+        this.clientValidator = clientValidator;
+        this.queryCountCache = queryCountCache;
+        this.tombstoneRepository = tombstoneRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     // ---------------- Browse ----------------
     @Transactional(readOnly = true)
-    public Page<ClientResponse> browse(String searchFilter, Pageable pageable) {
-        if (pageable.getPageSize() > 50) {
-            pageable = PageRequest.of(0, Integer.MAX_VALUE, pageable.getSort());
-        }
+    public Slice<ClientResponse> browse(String searchFilter, Pageable pageable, boolean withTotal) {
+        pageable = capPageSize(pageable);
 
         if (!StringUtils.hasText(searchFilter)) {
-            return clientRepository.findAll(pageable).map(ClientResponse::new);
+            return find(null, searchFilter, pageable, withTotal);
         }
 
-        Specification<Client> spec = (root, query, cb) -> cb.or(
-                cb.like(cb.lower(root.get("name")), "%" + searchFilter.toLowerCase() + "%"),
-                cb.like(cb.lower(root.get("email")), "%" + searchFilter.toLowerCase() + "%"),
-                cb.like(cb.lower(root.get("phone")), "%" + searchFilter.toLowerCase() + "%")
-        );
+        Optional<long[]> matches = clientSearchIndex.search(searchFilter);
+        if (matches.isPresent()) {
+            long[] ids = matches.get();
+            if (isSortedByIdOnly(pageable.getSort())) {
+                Page<ClientResponse> page = pageOfIds(ids, pageable);
+                return withTotal ? page : new SliceImpl<>(page.getContent(), pageable, page.hasNext());
+            }
+            if (ids.length <= MAX_SEARCH_CANDIDATES) {
+                return find(idIn(ids), searchFilter, pageable, withTotal);
+            }
+        }
 
-        return clientRepository.findAll(spec, pageable).map(ClientResponse::new);
+        return find(searchSpecification(searchFilter), searchFilter, pageable, withTotal);
+    }
+
+    /**
+     * Reads a page with its total, counted at most once per TTL for the same search, or a slice without total.
+     */
+    private Slice<ClientResponse> find(Specification<Client> spec, String searchFilter, Pageable pageable, boolean withTotal) {
+        if (!withTotal) {
+            return clientRepository.findResponseSlice(spec, pageable);
+        }
+        String key = StringUtils.hasText(searchFilter) ? searchFilter.toLowerCase() : "";
+        return clientRepository.findResponses(spec, pageable, () -> queryCountCache.count(Client.class, key,
+                () -> spec == null ? clientRepository.count() : clientRepository.count(spec)));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ClientResponse> scroll(String searchFilter, KeysetPageRequest request) throws CustomException {
+        Specification<Client> spec = null;
+        if (StringUtils.hasText(searchFilter)) {
+            Optional<long[]> matches = clientSearchIndex.search(searchFilter);
+            spec = matches.isPresent() && matches.get().length <= MAX_SEARCH_CANDIDATES
+                    ? idIn(matches.get())
+                    : searchSpecification(searchFilter);
+        }
+        return baseScroll(spec, request, KEYSET_PROPERTIES, clientRepository::findResponses, ClientResponse::getId);
     }
 
     @Transactional(readOnly = true)
     public Page<ContractResponse> getActiveContracts(Long clientId, LocalDate updatedAfter, LocalDate updatedBefore, Pageable pageable) throws CustomException {
-        Client client = findById(clientId);
+        requireExists(clientId);
 
-        return contractService.getActiveContractsByClientId(client.getId(), updatedAfter, updatedBefore, pageable);
+        return contractService.getActiveContractsByClientId(clientId, updatedAfter, updatedBefore, pageable);
     }
 
     @Transactional(readOnly = true)
     public BigDecimal getSumOfActiveContracts(Long clientId) throws CustomException {
-        Client client = findById(clientId);
+        requireExists(clientId);
+
+        return contractService.getSumOfActiveContractsByClientId(clientId);
+    }
+
+    /**
+     * Returns the active contract totals of several clients at once. Ids without client are reported as missing.
+     */
+    @Transactional(readOnly = true)
+    public ActiveContractSumsResponse getSumsOfActiveContracts(List<Long> clientIds) throws CustomException {
+        if (clientIds.size() > MAX_SUM_CLIENTS) {
+            throw new CustomException(ErrorEnum.CLIENT_CONTRACT_SUMS_SIZE, HttpStatus.BAD_REQUEST);
+        }
+        Set<Long> requested = new LinkedHashSet<>();
+        clientIds.stream().filter(Objects::nonNull).forEach(requested::add);
+
+        Map<Long, ClientContractTotal> totals = new HashMap<>();
+        contractService.getSumsOfActiveContractsByClientIds(requested)
+                .forEach(total -> totals.put(total.getClientId(), total));
+
+        List<ClientContractTotal> found = new ArrayList<>(totals.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long clientId : requested) {
+            ClientContractTotal total = totals.get(clientId);
+            if (total != null) {
+                found.add(total);
+            } else {
+                missing.add(clientId);
+            }
+        }
+        return new ActiveContractSumsResponse(found, missing);
+    }
 
-        return contractService.getSumOfActiveContractsByClientId(client.getId());
+    // ---------------- Export ----------------
+
+    /**
+     * Streams every client to the given output. Rows are read with a JDBC fetch size and detached
+     * once written, so memory use does not depend on the number of clients.
+     */
+    @Transactional(readOnly = true)
+    public void export(ExportFormat format, OutputStream out) throws IOException {
+        // hints do not cover the rows of a stream, which are read after the query has run: keep the exported
+        // entities out of the second-level cache from the session, so that an export does not evict the working set
+        entityManager.setProperty(SpecHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        try (Stream<Client> clients = clientRepository.streamAll();
+             ExportWriter<ClientResponse> writer = format.writer(out, objectMapper, ClientResponse.class, EXPORT_COLUMNS)) {
+            Iterator<Client> iterator = clients.iterator();
+            while (iterator.hasNext()) {
+                Client client = iterator.next();
+                writer.write(new ClientResponse(client));
+                entityManager.detach(client);
+            }
+        }
     }
 
     // ---------------- Read ----------------
@@ -77,38 +219,49 @@ public class ClientService extends BaseJpaPersistence<ClientRepository, Client,
         return new ClientResponse(client);
     }
 
+    /**
+     * Returns the entity tag of the client, read from its version alone.
+     */
+    @Transactional(readOnly = true)
+    public String entityTag(Long id) throws CustomException {
+        Long version = clientRepository.findVersionById(id)
+                .orElseThrow(() -> new CustomException(ErrorEnum.CLIENT_NOT_FOUND, HttpStatus.BAD_REQUEST));
+        return EntityTags.of(id, version);
+    }
+
+    @Transactional(readOnly = true)
+    public ClientResponse readByUuid(UUID uuid) throws CustomException {
+        return baseFindByUuid(uuid)
+                .map(ClientResponse::new)
+                .orElseThrow(() -> new CustomException(ErrorEnum.CLIENT_NOT_FOUND, HttpStatus.BAD_REQUEST));
+    }
+
     // ---------------- Add ----------------
     @Transactional
     public ClientResponse add(ClientRequest request) throws CustomException {
         validateClient(request, false);
 
-        Client client;
-        if (request.getType().equals(ClientType.PERSON)) {
-            PersonClient person = new PersonClient();
-            person.setBirthDate(request.getBirthDate());
-            client = person;
-        } else if (request.getType().equals(ClientType.COMPANY)) {
-            CompanyClient company = new CompanyClient();
-            company.setCompanyId(request.getCompanyId());
-            client = company;
-        } else {
-            throw new CustomException(ErrorEnum.CLIENT_VALIDATION, HttpStatus.BAD_REQUEST);
-        }
-
-        client.setName(request.getName());
-        client.setEmail(request.getEmail());
-        client.setPhone(request.getPhone());
-
-        client = clientRepository.save(client);
-        return new ClientResponse(client);
+        Client client = clientRepository.save(newClient(request));
+        ClientResponse response = new ClientResponse(client);
+        eventPublisher.publishEvent(new ClientChangedEvent(ChangeType.CREATED, response));
+        return response;
     }
 
     // ---------------- Update ----------------
+    /**
+     * Updates a client, the concurrent updates being detected through its version.
+     *
+     * @param ifMatch If-Match header, the update is rejected unless it matches the current entity tag; null to skip
+     * @return Updated client and its new entity tag
+     */
     @Transactional
-    public ClientResponse update(Long id, ClientRequest request) throws CustomException {
+    public TaggedResponse<ClientResponse> update(Long id, ClientRequest request, String ifMatch) throws CustomException {
         validateClient(request, true);
 
         Client client = findById(id);
+        if (ifMatch != null && !EntityTags.matches(ifMatch, EntityTags.of(client.getId(), client.getVersion()))) {
+            throw new CustomException(ErrorEnum.CLIENT_PRECONDITION, HttpStatus.PRECONDITION_FAILED);
+        }
         client.setName(request.getName());
         client.setEmail(request.getEmail());
         client.setPhone(request.getPhone());
@@ -122,15 +275,24 @@ public class ClientService extends BaseJpaPersistence<ClientRepository, Client,
         }
 
         client = clientRepository.saveAndFlush(client);
-        return new ClientResponse(client);
+        ClientResponse response = new ClientResponse(client);
+        eventPublisher.publishEvent(new ClientChangedEvent(ChangeType.UPDATED, response));
+        return new TaggedResponse<>(response, EntityTags.of(client.getId(), client.getVersion()));
     }
 
     // ---------------- Delete ----------------
     @Transactional
     public ClientResponse delete(Long id) throws CustomException {
         Client client = findById(id);
+        contractService.evictContractsOfClient(client.getId());
+        // the contracts go with the client through the foreign key cascade, record them for the change feed first
+        LocalDateTime now = LocalDateTime.now();
+        tombstoneRepository.recordContractsOfClient(client.getId(), now);
+        tombstoneRepository.recordClient(client.getId(), now);
         clientRepository.delete(client.getId());
-        return new ClientResponse(client);
+        ClientResponse response = new ClientResponse(client);
+        eventPublisher.publishEvent(new ClientChangedEvent(ChangeType.DELETED, response));
+        return response;
     }
 
     // ---------------- Helper ----------------
@@ -140,35 +302,93 @@ public class ClientService extends BaseJpaPersistence<ClientRepository, Client,
                 .orElseThrow(() -> new CustomException(ErrorEnum.CLIENT_NOT_FOUND, HttpStatus.BAD_REQUEST));
     }
 
-    private void validateClient(ClientRequest request, boolean updating) throws CustomException {
-        if (!StringUtils.hasText(request.getName()) ||
-                !StringUtils.hasText(request.getEmail()) ||
-                !StringUtils.hasText(request.getPhone())) {
+    /**
+     * Builds a new, not yet persisted client of the requested type.
+     */
+    static Client newClient(ClientRequest request) throws CustomException {
+        Client client;
+        if (ClientType.PERSON.equals(request.getType())) {
+            PersonClient person = new PersonClient();
+            person.setBirthDate(request.getBirthDate());
+            client = person;
+        } else if (ClientType.COMPANY.equals(request.getType())) {
+            CompanyClient company = new CompanyClient();
+            company.setCompanyId(request.getCompanyId());
+            client = company;
+        } else {
             throw new CustomException(ErrorEnum.CLIENT_VALIDATION, HttpStatus.BAD_REQUEST);
         }
 
-        String emailRegex = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$";
-        if (!request.getEmail().matches(emailRegex)) {
-            throw new CustomException(ErrorEnum.CLIENT_VALIDATION, HttpStatus.BAD_REQUEST);
-        }
+        client.setName(request.getName());
+        client.setEmail(request.getEmail());
+        client.setPhone(request.getPhone());
+        return client;
+    }
 
-        String phoneRegex = "^\\+?[0-9]{7,15}$";
-        if (!request.getPhone().matches(phoneRegex)) {
-            throw new CustomException(ErrorEnum.CLIENT_VALIDATION, HttpStatus.BAD_REQUEST);
+    private void requireExists(Long id) throws CustomException {
+        if (!clientRepository.existsById(id)) {
+            throw new CustomException(ErrorEnum.CLIENT_NOT_FOUND, HttpStatus.BAD_REQUEST);
         }
+    }
 
-        if (request.getType().equals(ClientType.PERSON)) {
-            if (request.getBirthDate() == null) {
-                throw new CustomException(ErrorEnum.CLIENT_VALIDATION, HttpStatus.BAD_REQUEST);
-            }
-            if (request.getBirthDate().isAfter(LocalDate.now())) {
-                throw new CustomException(ErrorEnum.CLIENT_VALIDATION, HttpStatus.BAD_REQUEST);
-            }
+    private static Map<String, Function<ClientResponse, Object>> exportColumns() {
+        Map<String, Function<ClientResponse, Object>> columns = new LinkedHashMap<>();
+        columns.put("id", ClientResponse::getId);
+        columns.put("uuid", ClientResponse::getUuid);
+        columns.put("type", ClientResponse::getType);
+        columns.put("name", ClientResponse::getName);
+        columns.put("email", ClientResponse::getEmail);
+        columns.put("phone", ClientResponse::getPhone);
+        columns.put("birthDate", ClientResponse::getBirthDate);
+        columns.put("companyId", ClientResponse::getCompanyId);
+        return Collections.unmodifiableMap(columns);
+    }
+
+    private static boolean isSortedByIdOnly(Sort sort) {
+        return sort.isUnsorted() || sort.stream().allMatch(order -> "id".equals(order.getProperty()));
+    }
+
+    private static Specification<Client> idIn(long[] ids) {
+        List<Long> values = Arrays.stream(ids).boxed().toList();
+        return SpecificationUtils.buildSpecificationEqualsToAnyId("id", values);
+    }
+
+    /**
+     * Pages the ids resolved by the search index in memory and only loads the clients of the requested page.
+     */
+    private Page<ClientResponse> pageOfIds(long[] ids, Pageable pageable) {
+        boolean descending = pageable.getSort().stream().anyMatch(Sort.Order::isDescending);
+        int from = (int) Math.min(pageable.getOffset(), ids.length);
+        int to = Math.min(from + pageable.getPageSize(), ids.length);
+
+        List<Long> pageIds = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            pageIds.add(descending ? ids[ids.length - 1 - i] : ids[i]);
         }
 
-        if (request.getType().equals(ClientType.COMPANY) && !StringUtils.hasText(request.getCompanyId())) {
-            throw new CustomException(ErrorEnum.CLIENT_VALIDATION, HttpStatus.BAD_REQUEST);
+        Map<Long, ClientResponse> clients = new HashMap<>();
+        if (!pageIds.isEmpty()) {
+            clientRepository.findResponses(SpecificationUtils.buildSpecificationEqualsToAnyId("id", pageIds), Sort.unsorted(), -1)
+                    .forEach(client -> clients.put(client.getId(), client));
         }
+        List<ClientResponse> content = pageIds.stream()
+                .map(clients::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(content, pageable, ids.length);
+    }
+
+    private Specification<Client> searchSpecification(String searchFilter) {
+        String pattern = "%" + searchFilter.toLowerCase() + "%";
+        return (root, query, cb) -> cb.or(
+                cb.like(cb.lower(root.get("name")), pattern),
+                cb.like(cb.lower(root.get("email")), pattern),
+                cb.like(cb.lower(root.get("phone")), pattern)
+        );
+    }
+
+    private void validateClient(ClientRequest request, boolean updating) throws CustomException {
+        clientValidator.validate(request);
 
         if (Boolean.TRUE.equals(updating)) {
             if (request.getUuid() == null) {
@@ -0,0 +1,53 @@
+package com.vaudoise.vaudoiseback.persistence.service;
+
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import com.vaudoise.vaudoiseback.persistence.entities.enums.ClientType;
+import com.vaudoise.vaudoiseback.rest.dto.ClientRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.util.regex.Pattern;
+
+/**
+ * Field rules every client must satisfy, shared by the single and bulk write paths.
+ * Checks that need the database (unique email) are left to the callers.
+ */
+@Component
+public class ClientValidator {
+
+    private static final Pattern EMAIL = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
+    private static final Pattern PHONE = Pattern.compile("^\\+?[0-9]{7,15}$");
+
+    public void validate(ClientRequest request) throws CustomException {
+        if (request.getType() == null ||
+                !StringUtils.hasText(request.getName()) ||
+                !StringUtils.hasText(request.getEmail()) ||
+                !StringUtils.hasText(request.getPhone())) {
+            throw new CustomException(ErrorEnum.CLIENT_VALIDATION, HttpStatus.BAD_REQUEST);
+        }
+
+        if (!EMAIL.matcher(request.getEmail()).matches()) {
+            throw new CustomException(ErrorEnum.CLIENT_VALIDATION, HttpStatus.BAD_REQUEST);
+        }
+
+        if (!PHONE.matcher(request.getPhone()).matches()) {
+            throw new CustomException(ErrorEnum.CLIENT_VALIDATION, HttpStatus.BAD_REQUEST);
+        }
+
+        if (request.getType().equals(ClientType.PERSON)) {
+            if (request.getBirthDate() == null) {
+                throw new CustomException(ErrorEnum.CLIENT_VALIDATION, HttpStatus.BAD_REQUEST);
+            }
+            if (request.getBirthDate().isAfter(LocalDate.now())) {
+                throw new CustomException(ErrorEnum.CLIENT_VALIDATION, HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        if (request.getType().equals(ClientType.COMPANY) && !StringUtils.hasText(request.getCompanyId())) {
+            throw new CustomException(ErrorEnum.CLIENT_VALIDATION, HttpStatus.BAD_REQUEST);
+        }
+    }
+}
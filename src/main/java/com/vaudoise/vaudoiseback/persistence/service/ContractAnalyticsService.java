@@ -0,0 +1,45 @@
+package com.vaudoise.vaudoiseback.persistence.service;
+
+import com.vaudoise.vaudoiseback.persistence.analytics.ContractGrouping;
+import com.vaudoise.vaudoiseback.persistence.readmodel.ContractSnapshot;
+import com.vaudoise.vaudoiseback.persistence.repositories.ContractRepository;
+import com.vaudoise.vaudoiseback.rest.dto.ContractAnalyticsGroup;
+import com.vaudoise.vaudoiseback.rest.dto.ContractAnalyticsResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Portfolio figures over the contracts in force on a date, grouped by a single dimension.
+ */
+@Service
+@Slf4j
+public class ContractAnalyticsService {
+
+    private final ContractRepository contractRepository;
+    private final ContractSnapshot contractSnapshot;
+
+    @Autowired
+    public ContractAnalyticsService(ContractRepository contractRepository, ContractSnapshot contractSnapshot) {
+        this.contractRepository = contractRepository;
+        this.contractSnapshot = contractSnapshot;
+    }
+
+    /**
+     * Aggregates the in-memory contract snapshot, or queries the database while the snapshot is not built.
+     *
+     * @param grouping Dimension to group by
+     * @param asOf     Date on which the contracts are in force, today if null
+     */
+    @Transactional(readOnly = true)
+    public ContractAnalyticsResponse aggregate(ContractGrouping grouping, LocalDate asOf) {
+        LocalDate date = asOf == null ? LocalDate.now() : asOf;
+        List<ContractAnalyticsGroup> groups = contractSnapshot.aggregateActive(grouping, date)
+                .orElseGet(() -> contractRepository.aggregateActive(grouping, date));
+        return new ContractAnalyticsResponse(grouping.getValue(), date, groups);
+    }
+}
@@ -1,91 +1,200 @@
 package com.vaudoise.vaudoiseback.persistence.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vaudoise.vaudoiseback.config.logging.LogServiceMethod;
 import com.vaudoise.vaudoiseback.exception.CustomException;
 import com.vaudoise.vaudoiseback.exception.ErrorEnum;
 import com.vaudoise.vaudoiseback.persistence.entities.Client;
 import com.vaudoise.vaudoiseback.persistence.entities.Contract;
+import com.vaudoise.vaudoiseback.persistence.events.ChangeType;
+import com.vaudoise.vaudoiseback.persistence.events.ContractChangedEvent;
+import com.vaudoise.vaudoiseback.persistence.pagination.KeysetPageRequest;
+import com.vaudoise.vaudoiseback.persistence.pagination.KeysetProperty;
+import com.vaudoise.vaudoiseback.persistence.readmodel.ActiveContractTotals;
+import com.vaudoise.vaudoiseback.persistence.readmodel.ClientContractTotal;
+import com.vaudoise.vaudoiseback.persistence.readmodel.QueryCountCache;
 import com.vaudoise.vaudoiseback.persistence.repositories.ClientRepository;
 import com.vaudoise.vaudoiseback.persistence.repositories.ContractRepository;
+import com.vaudoise.vaudoiseback.persistence.repositories.TombstoneRepository;
+import com.vaudoise.vaudoiseback.persistence.specification.ContractSpecifications;
+import com.vaudoise.vaudoiseback.rest.EntityTags;
+import com.vaudoise.vaudoiseback.rest.dto.ContractBatchResponse;
+import com.vaudoise.vaudoiseback.rest.dto.ContractFilter;
+import com.vaudoise.vaudoiseback.rest.dto.ContractOperation;
+import com.vaudoise.vaudoiseback.rest.dto.ContractOperationResult;
 import com.vaudoise.vaudoiseback.rest.dto.ContractRequest;
 import com.vaudoise.vaudoiseback.rest.dto.ContractResponse;
+import com.vaudoise.vaudoiseback.rest.dto.CursorPage;
+import com.vaudoise.vaudoiseback.rest.dto.TaggedResponse;
+import com.vaudoise.vaudoiseback.rest.export.ExportFormat;
+import com.vaudoise.vaudoiseback.rest.export.ExportWriter;
+import jakarta.persistence.Cache;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.Predicate;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.SpecHints;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
+@LogServiceMethod
 @Slf4j
 public class ContractService extends BaseJpaPersistence<ContractRepository, Contract, Long> {
 
+    private static final Map<String, KeysetProperty<ContractResponse>> KEYSET_PROPERTIES = KeysetProperty.index(
+            new KeysetProperty<>("id", Long.class, ContractResponse::getId),
+            new KeysetProperty<>("startDate", LocalDate.class, ContractResponse::getStartDate),
+            new KeysetProperty<>("cost", BigDecimal.class, ContractResponse::getCost)
+    );
+
+    private static final Map<String, Function<ContractResponse, Object>> EXPORT_COLUMNS = exportColumns();
+
+    /**
+     * Maximum number of operations accepted by a single batch
+     */
+    public static final int MAX_BATCH_OPERATIONS = 1000;
+
     private final ContractRepository contractRepository;
     private final ClientRepository clientRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ActiveContractTotals activeContractTotals;
+    private final QueryCountCache queryCountCache;
+    private final TombstoneRepository tombstoneRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public ContractService(ContractRepository contractRepository, ClientRepository clientRepository) {
+    public ContractService(ContractRepository contractRepository, ClientRepository clientRepository,
+                           EntityManager entityManager, ObjectMapper objectMapper,
+                           ActiveContractTotals activeContractTotals, QueryCountCache queryCountCache,
+                           TombstoneRepository tombstoneRepository, ApplicationEventPublisher eventPublisher) {
         super(contractRepository);
         this.contractRepository = contractRepository;
         this.clientRepository = clientRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.activeContractTotals = activeContractTotals;
+        this.queryCountCache = queryCountCache;
+        this.tombstoneRepository = tombstoneRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     // ---------------- Browse ----------------
     @Transactional(readOnly = true)
-    public Page<ContractResponse> browse(Long clientId, Pageable pageable) {
-        if (pageable.getPageSize() > 50) {
-            pageable = PageRequest.of(0, Integer.MAX_VALUE, pageable.getSort());
-        }
+    public Slice<ContractResponse> browse(ContractFilter filter, Pageable pageable, boolean withTotal) throws CustomException {
+        pageable = capPageSize(pageable);
+        Specification<Contract> spec = filterSpecification(filter);
 
-        List<Contract> contracts;
-        if (clientId != null) {
-            contracts = contractRepository.findByClientId(clientId);
-        } else {
-            contracts = contractRepository.findAll();
+        if (!withTotal) {
+            return contractRepository.findResponseSlice(spec, pageable);
         }
+        Object key = filter == null ? new ContractFilter() : filter;
+        return contractRepository.findResponses(spec, pageable,
+                () -> queryCountCache.count(Contract.class, key, () -> contractRepository.count(spec)));
+    }
 
-        return new PageImpl<>(
-                contracts.stream().map(ContractResponse::new).toList(),
-                pageable,
-                contracts.size()
-        );
+    @Transactional(readOnly = true)
+    public CursorPage<ContractResponse> scroll(ContractFilter filter, KeysetPageRequest request) throws CustomException {
+        return baseScroll(filterSpecification(filter), request, KEYSET_PROPERTIES,
+                contractRepository::findResponses, ContractResponse::getId);
+    }
+
+    private Specification<Contract> filterSpecification(ContractFilter filter) throws CustomException {
+        Specification<Contract> spec = ContractSpecifications.fromFilter(filter);
+        return filter == null ? spec : spec.and(baseQuerySpecification(filter.getQuery()));
     }
 
     @Transactional(readOnly = true)
     public Page<ContractResponse> getActiveContractsByClientId(Long clientId, LocalDate updatedAfter, LocalDate updatedBefore, Pageable pageable) {
         Specification<Contract> spec = (root, query, cb) -> {
-            var predicates = cb.conjunction();
+            List<Predicate> predicates = new ArrayList<>();
 
-            predicates.getExpressions().add(
+            predicates.add(
                     cb.or(
                             cb.isNull(root.get("endDate")),
                             cb.greaterThan(root.get("endDate"), LocalDate.now())
                     )
             );
 
-            predicates.getExpressions().add(cb.equal(root.get("client").get("id"), clientId));
+            predicates.add(cb.equal(root.get("client").get("id"), clientId));
 
             if (updatedAfter != null) {
-                predicates.getExpressions().add(cb.greaterThanOrEqualTo(root.get("updatedAt"), updatedAfter.atStartOfDay()));
+                predicates.add(cb.greaterThanOrEqualTo(root.get("modifiedAt"), updatedAfter.atStartOfDay()));
             }
 
             if (updatedBefore != null) {
-                predicates.getExpressions().add(cb.lessThanOrEqualTo(root.get("updatedAt"), updatedBefore.atTime(23, 59, 59)));
+                predicates.add(cb.lessThan(root.get("modifiedAt"), updatedBefore.plusDays(1).atStartOfDay()));
             }
 
-            return predicates;
+            return cb.and(predicates.toArray(Predicate[]::new));
         };
 
-        return contractRepository.findAll(spec, pageable).map(ContractResponse::new);
+        return contractRepository.findResponses(spec, pageable);
     }
 
     @Transactional(readOnly = true)
     public BigDecimal getSumOfActiveContractsByClientId(Long clientId) {
-        return contractRepository.sumActiveContractCostsByClientId(clientId);
+        return activeContractTotals.get(clientId)
+                .orElseGet(() -> contractRepository.sumActiveContractCostsByClientId(clientId));
+    }
+
+    /**
+     * Returns the active contract totals of the given clients, skipping the ids of clients that do not exist.
+     * Answered from the materialized totals when they are built, with a single query otherwise.
+     */
+    @Transactional(readOnly = true)
+    public List<ClientContractTotal> getSumsOfActiveContractsByClientIds(Collection<Long> clientIds) {
+        if (clientIds.isEmpty()) {
+            return List.of();
+        }
+        if (activeContractTotals.isReady()) {
+            return clientRepository.findExistingIds(clientIds).stream()
+                    .map(clientId -> new ClientContractTotal(clientId, getSumOfActiveContractsByClientId(clientId)))
+                    .toList();
+        }
+        return contractRepository.sumActiveContractCostsByClientIdIn(clientIds);
+    }
+
+    // ---------------- Export ----------------
+
+    /**
+     * Streams every contract to the given output. Rows are read with a JDBC fetch size and detached
+     * once written, so memory use does not depend on the number of contracts.
+     */
+    @Transactional(readOnly = true)
+    public void export(ExportFormat format, OutputStream out) throws IOException {
+        // hints do not cover the rows of a stream, which are read after the query has run: keep the exported
+        // entities out of the second-level cache from the session, so that an export does not evict the working set
+        entityManager.setProperty(SpecHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        try (Stream<Contract> contracts = contractRepository.streamAll();
+             ExportWriter<ContractResponse> writer = format.writer(out, objectMapper, ContractResponse.class, EXPORT_COLUMNS)) {
+            Iterator<Contract> iterator = contracts.iterator();
+            while (iterator.hasNext()) {
+                Contract contract = iterator.next();
+                writer.write(new ContractResponse(contract));
+                entityManager.detach(contract);
+                if (contract.getClient() != null) {
+                    entityManager.detach(contract.getClient());
+                }
+            }
+        }
     }
 
     // ---------------- Read ----------------
@@ -95,6 +204,25 @@ public class ContractService extends BaseJpaPersistence<ContractRepository, Cont
         return new ContractResponse(contract);
     }
 
+    /**
+     * Returns the entity tag of the contract, read from its version and the version of its client alone.
+     */
+    @Transactional(readOnly = true)
+    public String entityTag(Long id) throws CustomException {
+        List<Object[]> versions = contractRepository.findVersionsById(id);
+        if (versions.isEmpty()) {
+            throw new CustomException(ErrorEnum.CONTRACT_NOT_FOUND, HttpStatus.BAD_REQUEST);
+        }
+        return EntityTags.of(id, (Long) versions.getFirst()[0], (Long) versions.getFirst()[1]);
+    }
+
+    @Transactional(readOnly = true)
+    public ContractResponse readByUuid(UUID uuid) throws CustomException {
+        return baseFindByUuid(uuid)
+                .map(ContractResponse::new)
+                .orElseThrow(() -> new CustomException(ErrorEnum.CONTRACT_NOT_FOUND, HttpStatus.BAD_REQUEST));
+    }
+
     // ---------------- Add ----------------
     @Transactional
     public ContractResponse add(ContractRequest request) throws CustomException {
@@ -112,15 +240,27 @@ public class ContractService extends BaseJpaPersistence<ContractRepository, Cont
         contract.setCost(request.getCost());
 
         contract = contractRepository.save(contract);
-        return new ContractResponse(contract);
+        ContractResponse response = new ContractResponse(contract);
+        eventPublisher.publishEvent(new ContractChangedEvent(ChangeType.CREATED, null, response));
+        return response;
     }
 
     // ---------------- Update ----------------
+    /**
+     * Updates a contract, the concurrent updates being detected through its version.
+     *
+     * @param ifMatch If-Match header, the update is rejected unless it matches the current entity tag; null to skip
+     * @return Updated contract and its new entity tag
+     */
     @Transactional
-    public ContractResponse update(Long id, ContractRequest request) throws CustomException {
+    public TaggedResponse<ContractResponse> update(Long id, ContractRequest request, String ifMatch) throws CustomException {
         validateContract(request, true);
 
         Contract contract = findById(id);
+        if (ifMatch != null && !EntityTags.matches(ifMatch, tagOf(contract))) {
+            throw new CustomException(ErrorEnum.CONTRACT_PRECONDITION, HttpStatus.PRECONDITION_FAILED);
+        }
+        ContractResponse before = new ContractResponse(contract);
 
         if (request.getClientId() != null) {
             Client client = clientRepository.findById(request.getClientId())
@@ -133,15 +273,172 @@ public class ContractService extends BaseJpaPersistence<ContractRepository, Cont
         contract.setCost(request.getCost());
 
         contract = contractRepository.saveAndFlush(contract);
-        return new ContractResponse(contract);
+        ContractResponse response = new ContractResponse(contract);
+        eventPublisher.publishEvent(new ContractChangedEvent(ChangeType.UPDATED, before, response));
+        return new TaggedResponse<>(response, tagOf(contract));
+    }
+
+    private static String tagOf(Contract contract) {
+        Long clientVersion = contract.getClient() != null ? contract.getClient().getVersion() : null;
+        return EntityTags.of(contract.getId(), contract.getVersion(), clientVersion);
     }
 
     // ---------------- Delete ----------------
     @Transactional
     public ContractResponse delete(Long id) throws CustomException {
         Contract contract = findById(id);
+        tombstoneRepository.recordContracts(List.of(contract.getId()), LocalDateTime.now());
         contractRepository.deleteById(contract.getId());
-        return new ContractResponse(contract);
+        ContractResponse response = new ContractResponse(contract);
+        eventPublisher.publishEvent(new ContractChangedEvent(ChangeType.DELETED, response, null));
+        return response;
+    }
+
+    // ---------------- Batch ----------------
+
+    /**
+     * Applies create, update and delete operations in a single transaction.
+     * <p>
+     * Every operation is validated before anything is written, and none is applied if any is not valid. Clients and
+     * contracts are loaded with one query each, updates are flushed as JDBC batches, deletes go out as a single
+     * statement and creations as a single JDBC batch.
+     *
+     * @param operations Operations, a contract can only be targeted by one of them
+     * @return Result of every operation, in request order
+     */
+    @Transactional
+    public ContractBatchResponse batch(List<ContractOperation> operations) throws CustomException {
+        if (operations.size() > MAX_BATCH_OPERATIONS) {
+            throw new CustomException(ErrorEnum.CONTRACT_BATCH_SIZE, HttpStatus.BAD_REQUEST);
+        }
+
+        Set<Long> clientIds = new HashSet<>();
+        Set<Long> contractIds = new HashSet<>();
+        for (ContractOperation operation : operations) {
+            if (operation.getContract() != null && operation.getContract().getClientId() != null) {
+                clientIds.add(operation.getContract().getClientId());
+            }
+            if (operation.getType() != ContractOperation.Type.CREATE && operation.getId() != null) {
+                contractIds.add(operation.getId());
+            }
+        }
+        Map<Long, Client> clients = new HashMap<>();
+        if (!clientIds.isEmpty()) {
+            clientRepository.findAllById(clientIds).forEach(client -> clients.put(client.getId(), client));
+        }
+        Map<Long, Contract> contracts = new HashMap<>();
+        if (!contractIds.isEmpty()) {
+            contractRepository.findAllWithClientByIdIn(contractIds).forEach(contract -> contracts.put(contract.getId(), contract));
+        }
+
+        List<ContractOperationResult> results = new ArrayList<>(operations.size());
+        Set<Long> targeted = new HashSet<>();
+        boolean valid = true;
+        for (int i = 0; i < operations.size(); i++) {
+            ContractOperation operation = operations.get(i);
+            ContractOperationResult result = new ContractOperationResult(i, operation.getType(), null, null, null);
+            try {
+                validateOperation(operation, clients, contracts, targeted);
+            } catch (CustomException ex) {
+                result.setError(ex.getErrorKey());
+                result.setMessage(ex.getMessage());
+                valid = false;
+            }
+            results.add(result);
+        }
+        if (!valid) {
+            return new ContractBatchResponse(false, results);
+        }
+
+        Contract[] written = new Contract[operations.size()];
+        ContractResponse[] before = new ContractResponse[operations.size()];
+        List<Contract> created = new ArrayList<>();
+        List<Contract> deleted = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            ContractOperation operation = operations.get(i);
+            ContractRequest request = operation.getContract();
+            switch (operation.getType()) {
+                case CREATE -> {
+                    Contract contract = new Contract();
+                    contract.setClient(clients.get(request.getClientId()));
+                    contract.setStartDate(request.getStartDate());
+                    contract.setEndDate(request.getEndDate());
+                    contract.setCost(request.getCost());
+                    created.add(contract);
+                    written[i] = contract;
+                }
+                case UPDATE -> {
+                    Contract contract = contracts.get(operation.getId());
+                    before[i] = new ContractResponse(contract);
+                    contract.setClient(clients.get(request.getClientId()));
+                    contract.setStartDate(request.getStartDate());
+                    contract.setEndDate(request.getEndDate());
+                    contract.setCost(request.getCost());
+                    written[i] = contract;
+                }
+                case DELETE -> {
+                    Contract contract = contracts.get(operation.getId());
+                    before[i] = new ContractResponse(contract);
+                    deleted.add(contract);
+                }
+            }
+        }
+
+        if (!deleted.isEmpty()) {
+            tombstoneRepository.recordContracts(deleted.stream().map(Contract::getId).toList(), LocalDateTime.now());
+            // removed through the session so that only these contracts are evicted from the second-level cache,
+            // a bulk delete statement evicts the whole region
+            contractRepository.deleteAll(deleted);
+        }
+        // updates and deletes are batched by hibernate.jdbc.batch_size, flush them before the statements that bypass
+        // the session
+        entityManager.flush();
+        if (!created.isEmpty()) {
+            contractRepository.insertAll(created);
+            Map<UUID, Contract> byUuid = new HashMap<>();
+            created.forEach(contract -> byUuid.put(contract.getUuid(), contract));
+            for (Object[] row : contractRepository.findIdsByUuidIn(byUuid.keySet())) {
+                byUuid.get((UUID) row[0]).setId((Long) row[1]);
+            }
+        }
+
+        for (int i = 0; i < operations.size(); i++) {
+            ContractResponse after = written[i] != null ? new ContractResponse(written[i]) : null;
+            ChangeType changeType = switch (operations.get(i).getType()) {
+                case CREATE -> ChangeType.CREATED;
+                case UPDATE -> ChangeType.UPDATED;
+                case DELETE -> ChangeType.DELETED;
+            };
+            results.get(i).setContract(after != null ? after : before[i]);
+            eventPublisher.publishEvent(new ContractChangedEvent(changeType, before[i], after));
+        }
+        return new ContractBatchResponse(true, results);
+    }
+
+    // ---------------- Cache ----------------
+
+    /**
+     * Evicts the contracts of a client from the second-level cache. Deleting a client removes its contracts through
+     * the database cascade, which Hibernate does not see. Call it before the client is deleted, the contracts are
+     * evicted right away and again once the transaction completes, in case a concurrent read cached them meanwhile.
+     *
+     * @param clientId Client id
+     */
+    @Transactional
+    public void evictContractsOfClient(Long clientId) {
+        List<Long> ids = contractRepository.findIdsByClientId(clientId);
+        if (ids.isEmpty()) return;
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        Runnable evict = () -> ids.forEach(id -> cache.evict(Contract.class, id));
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
     }
 
     // ---------------- Helper ----------------
@@ -151,6 +448,47 @@ public class ContractService extends BaseJpaPersistence<ContractRepository, Cont
                 .orElseThrow(() -> new CustomException(ErrorEnum.CONTRACT_NOT_FOUND, HttpStatus.BAD_REQUEST));
     }
 
+    private static Map<String, Function<ContractResponse, Object>> exportColumns() {
+        Map<String, Function<ContractResponse, Object>> columns = new LinkedHashMap<>();
+        columns.put("id", ContractResponse::getId);
+        columns.put("uuid", ContractResponse::getUuid);
+        columns.put("startDate", ContractResponse::getStartDate);
+        columns.put("endDate", ContractResponse::getEndDate);
+        columns.put("cost", ContractResponse::getCost);
+        columns.put("clientId", ContractResponse::getClientId);
+        columns.put("clientName", ContractResponse::getClientName);
+        return Collections.unmodifiableMap(columns);
+    }
+
+    private void validateOperation(ContractOperation operation, Map<Long, Client> clients,
+                                   Map<Long, Contract> contracts, Set<Long> targeted) throws CustomException {
+        if (operation.getType() == null) {
+            throw new CustomException(ErrorEnum.CONTRACT_VALIDATION, HttpStatus.BAD_REQUEST);
+        }
+
+        if (operation.getType() != ContractOperation.Type.CREATE) {
+            if (operation.getId() == null) {
+                throw new CustomException(ErrorEnum.CONTRACT_VALIDATION, HttpStatus.BAD_REQUEST);
+            }
+            if (!contracts.containsKey(operation.getId())) {
+                throw new CustomException(ErrorEnum.CONTRACT_NOT_FOUND, HttpStatus.BAD_REQUEST);
+            }
+            if (!targeted.add(operation.getId())) {
+                throw new CustomException(ErrorEnum.CONTRACT_BATCH_CONFLICT, HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        if (operation.getType() != ContractOperation.Type.DELETE) {
+            if (operation.getContract() == null) {
+                throw new CustomException(ErrorEnum.CONTRACT_VALIDATION, HttpStatus.BAD_REQUEST);
+            }
+            validateContract(operation.getContract(), operation.getType() == ContractOperation.Type.UPDATE);
+            if (!clients.containsKey(operation.getContract().getClientId())) {
+                throw new CustomException(ErrorEnum.CLIENT_NOT_FOUND, HttpStatus.BAD_REQUEST);
+            }
+        }
+    }
+
     private void validateContract(ContractRequest request, Boolean updating) throws CustomException {
         if (request.getStartDate() == null) {
             throw new CustomException(ErrorEnum.CONTRACT_VALIDATION, HttpStatus.BAD_REQUEST);
@@ -0,0 +1,72 @@
+package com.vaudoise.vaudoiseback.persistence.specification;
+
+import com.vaudoise.vaudoiseback.persistence.entities.Contract;
+import com.vaudoise.vaudoiseback.rest.dto.ContractFilter;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Specifications used to filter contracts.
+ */
+public class ContractSpecifications {
+
+    // non-instantiable class
+    private ContractSpecifications() {
+    }
+
+    /**
+     * Contracts that have not ended yet, i.e. without end date or with an end date after today.
+     *
+     * @return Search criteria as a Specification
+     */
+    public static Specification<Contract> active() {
+        return (root, query, builder) -> builder.or(
+                builder.isNull(root.get("endDate")),
+                builder.greaterThan(root.get("endDate"), LocalDate.now())
+        );
+    }
+
+    /**
+     * Builds the conjunction of all the restrictions set in the filter.
+     *
+     * @param filter Contract filter, may be null
+     * @return Search criteria as a Specification
+     */
+    public static Specification<Contract> fromFilter(ContractFilter filter) {
+        return (root, query, builder) -> {
+            if (filter == null) {
+                return builder.conjunction();
+            }
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.getClientId() != null) {
+                predicates.add(builder.equal(root.get("client").get("id"), filter.getClientId()));
+            }
+            if (filter.getStartDateFrom() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("startDate"), filter.getStartDateFrom()));
+            }
+            if (filter.getStartDateTo() != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("startDate"), filter.getStartDateTo()));
+            }
+            if (filter.getEndDateFrom() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("endDate"), filter.getEndDateFrom()));
+            }
+            if (filter.getEndDateTo() != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("endDate"), filter.getEndDateTo()));
+            }
+            if (filter.getCostMin() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("cost"), filter.getCostMin()));
+            }
+            if (filter.getCostMax() != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("cost"), filter.getCostMax()));
+            }
+            if (filter.isActiveOnly()) {
+                predicates.add(active().toPredicate(root, query, builder));
+            }
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -3,13 +3,35 @@ package com.vaudoise.vaudoiseback.persistence.specification;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 public class GenericSpecificationsBuilder<U> {
+    private static final Pattern VALUE_LIST_SEPARATOR = Pattern.compile(Pattern.quote(SearchOperation.VALUE_LIST_SEPARATOR));
+
     private final List<SearchCriteria> params;
 
+    /**
+     * Java type of each searchable attribute, null when values are passed as given
+     */
+    private final Map<String, Class<?>> attributeTypes;
+
     public GenericSpecificationsBuilder() {
         this.params = new ArrayList<>();
+        this.attributeTypes = null;
+    }
+
+    /**
+     * Builder which converts the values to the type of the attribute they are compared with, and rejects
+     * attributes the entity does not have.
+     *
+     * @param entityClass Entity class the specification applies to
+     */
+    public GenericSpecificationsBuilder(final Class<U> entityClass) {
+        this.params = new ArrayList<>();
+        this.attributeTypes = SpecificationUtils.getAttributeTypes(entityClass);
     }
 
     // API
@@ -18,9 +40,9 @@ public class GenericSpecificationsBuilder<U> {
     }
 
     public final GenericSpecificationsBuilder<U> with(final String orPredicate, final String key, final String operation, final Object value, final String prefix, final String suffix) {
-        final SearchOperation op = getSearchOperation(operation, prefix, suffix);
+        final SearchOperation op = getSearchOperation(operation, prefix, suffix, value);
         if (op != null) {
-            params.add(new SearchCriteria(orPredicate, key, op, value));
+            params.add(new SearchCriteria(orPredicate, key, op, typedValue(key, op, value)));
         }
         return this;
     }
@@ -47,21 +69,49 @@ public class GenericSpecificationsBuilder<U> {
         return this;
     }
 
-    private SearchOperation getSearchOperation(final String operation, final String prefix, final String suffix) {
-        SearchOperation op = SearchOperation.getSimpleOperation(operation.charAt(0));
+    private SearchOperation getSearchOperation(final String operation, final String prefix, final String suffix, final Object value) {
+        SearchOperation op = SearchOperation.getSimpleOperation(operation);
+        final boolean startWithAsterisk = prefix != null && prefix.contains(SearchOperation.ZERO_OR_MORE_REGEX);
+        final boolean endWithAsterisk = suffix != null && suffix.contains(SearchOperation.ZERO_OR_MORE_REGEX);
+        // with a wildcard, "null" is text to match, e.g. the free text search of the word
+        if (SearchOperation.NULL_VALUE.equals(value) && !startWithAsterisk && !endWithAsterisk) {
+            if (op == SearchOperation.EQUALITY) return SearchOperation.IS_NULL;
+            if (op == SearchOperation.NEGATION) return SearchOperation.IS_NOT_NULL;
+        }
         if (op == SearchOperation.EQUALITY) { // the operation may be complex operation
-            final boolean startWithAsterisk = prefix != null && prefix.contains(SearchOperation.ZERO_OR_MORE_REGEX);
-            final boolean endWithAsterisk = suffix != null && suffix.contains(SearchOperation.ZERO_OR_MORE_REGEX);
-
             if (startWithAsterisk && endWithAsterisk) {
                 op = SearchOperation.CONTAINS;
             } else if (startWithAsterisk) {
                 op = SearchOperation.ENDS_WITH;
             } else if (endWithAsterisk) {
                 op = SearchOperation.STARTS_WITH;
+            } else if (value instanceof String text && text.contains(SearchOperation.VALUE_LIST_SEPARATOR)) {
+                op = SearchOperation.IN;
             }
         }
         return op;
     }
+
+    private Object typedValue(final String key, final SearchOperation op, final Object value) {
+        if (op == SearchOperation.IS_NULL || op == SearchOperation.IS_NOT_NULL) {
+            return null;
+        }
+        if (attributeTypes == null) {
+            return op == SearchOperation.IN ? Arrays.asList(VALUE_LIST_SEPARATOR.split(value.toString())) : value;
+        }
+        Class<?> type = attributeTypes.get(key);
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown search attribute '" + key + "'");
+        }
+        if (op.isTextual()) {
+            return value.toString();
+        }
+        if (op == SearchOperation.IN) {
+            return VALUE_LIST_SEPARATOR.splitAsStream(value.toString())
+                    .map(item -> SearchValueConverter.convert(item, type))
+                    .toList();
+        }
+        return SearchValueConverter.convert(value.toString(), type);
+    }
 }
 
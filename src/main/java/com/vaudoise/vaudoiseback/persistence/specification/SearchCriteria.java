@@ -1,18 +1,19 @@
 package com.vaudoise.vaudoiseback.persistence.specification;
 
 import lombok.Getter;
-import lombok.Setter;
 
 import java.io.Serializable;
 
-@Setter
+/**
+ * Immutable search criterion, compiled specifications share them across requests
+ */
 @Getter
 public class SearchCriteria implements Serializable {
 
-    private String key;
-    private SearchOperation operation;
-    private Object value; // NOSONAR
-    private boolean orPredicate;
+    private final String key;
+    private final SearchOperation operation;
+    private final Object value; // NOSONAR
+    private final boolean orPredicate;
 
     public SearchCriteria(final String orPredicate, final String key, final SearchOperation operation, final Object value) {
         super();
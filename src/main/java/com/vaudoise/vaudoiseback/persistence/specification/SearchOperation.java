@@ -1,23 +1,37 @@
 package com.vaudoise.vaudoiseback.persistence.specification;
 
 public enum SearchOperation {
-    EQUALITY, NEGATION, GREATER_THAN, LESS_THAN, LIKE, STARTS_WITH, ENDS_WITH, CONTAINS;
+    EQUALITY, NEGATION, GREATER_THAN, GREATER_THAN_OR_EQUAL, LESS_THAN, LESS_THAN_OR_EQUAL, LIKE, STARTS_WITH, ENDS_WITH,
+    CONTAINS, IN, IS_NULL, IS_NOT_NULL;
 
-    public static final String[] SIMPLE_OPERATION_SET = {":", "!", ">", "<", "~"};
+    // two-character operations first, so that "cost>=10" is not read as "cost>" "=10"
+    public static final String[] SIMPLE_OPERATION_SET = {">=", "<=", ":", "!", ">", "<", "~"};
 
     public static final String OR_PREDICATE_FLAG = "'";
 
     public static final String ZERO_OR_MORE_REGEX = "*";
 
-    public static SearchOperation getSimpleOperation(final char input) {
+    public static final String VALUE_LIST_SEPARATOR = "|";
+
+    public static final String NULL_VALUE = "null";
+
+    public static SearchOperation getSimpleOperation(final String input) {
         return switch (input) {
-            case ':' -> EQUALITY;
-            case '!' -> NEGATION;
-            case '>' -> GREATER_THAN;
-            case '<' -> LESS_THAN;
-            case '~' -> LIKE;
+            case ":" -> EQUALITY;
+            case "!" -> NEGATION;
+            case ">" -> GREATER_THAN;
+            case ">=" -> GREATER_THAN_OR_EQUAL;
+            case "<" -> LESS_THAN;
+            case "<=" -> LESS_THAN_OR_EQUAL;
+            case "~" -> LIKE;
             default -> null;
         };
     }
-}
 
+    /**
+     * Whether the operation compares the value as text, in which case it is never converted to the attribute type.
+     */
+    public boolean isTextual() {
+        return this == LIKE || this == STARTS_WITH || this == ENDS_WITH || this == CONTAINS;
+    }
+}
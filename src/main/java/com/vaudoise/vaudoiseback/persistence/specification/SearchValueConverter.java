@@ -0,0 +1,50 @@
+package com.vaudoise.vaudoiseback.persistence.specification;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Converts search query values to the Java type of the attribute they are compared with, so that the database
+ * compares typed values (and can use the column indexes) instead of strings.
+ */
+final class SearchValueConverter {
+
+    // non-instantiable class
+    private SearchValueConverter() {
+    }
+
+    /**
+     * Converts the raw query value to the given attribute type.
+     *
+     * @param value Raw value from the query
+     * @param type  Java type of the attribute
+     * @return Typed value
+     * @throws IllegalArgumentException if the value cannot be read as the attribute type
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object convert(String value, Class<?> type) {
+        try {
+            if (type == String.class) return value;
+            if (type == BigDecimal.class) return new BigDecimal(value);
+            if (type == Long.class || type == long.class) return Long.valueOf(value);
+            if (type == Integer.class || type == int.class) return Integer.valueOf(value);
+            if (type == LocalDate.class) return LocalDate.parse(value);
+            if (type == LocalDateTime.class) return LocalDateTime.parse(value);
+            if (type == UUID.class) return UUID.fromString(value);
+            if (type == Boolean.class || type == boolean.class) return parseBoolean(value);
+            if (type.isEnum()) return Enum.valueOf((Class<? extends Enum>) type, value.toUpperCase());
+        } catch (IllegalArgumentException | DateTimeException ex) {
+            throw new IllegalArgumentException("Value '" + value + "' is not a valid " + type.getSimpleName(), ex);
+        }
+        throw new IllegalArgumentException("Attributes of type " + type.getSimpleName() + " cannot be searched");
+    }
+
+    private static Boolean parseBoolean(String value) {
+        if ("true".equalsIgnoreCase(value)) return Boolean.TRUE;
+        if ("false".equalsIgnoreCase(value)) return Boolean.FALSE;
+        throw new IllegalArgumentException(value);
+    }
+}
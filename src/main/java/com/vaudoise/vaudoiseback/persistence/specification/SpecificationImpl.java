@@ -2,12 +2,16 @@ package com.vaudoise.vaudoiseback.persistence.specification;
 
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.Collection;
+
 @Getter
 public class SpecificationImpl<T> implements Specification<T> {
     private final SearchCriteria criteria;
@@ -23,14 +27,35 @@ public class SpecificationImpl<T> implements Specification<T> {
         return switch (criteria.getOperation()) {
             case EQUALITY -> builder.equal(root.get(criteria.getKey()), criteria.getValue());
             case NEGATION -> builder.notEqual(root.get(criteria.getKey()), criteria.getValue());
-            case GREATER_THAN -> builder.greaterThan(root.get(criteria.getKey()), criteria.getValue().toString());
-            case LESS_THAN -> builder.lessThan(root.get(criteria.getKey()), criteria.getValue().toString());
-            case LIKE -> builder.like(root.get(criteria.getKey()), criteria.getValue().toString());
-            case STARTS_WITH -> builder.like(root.get(criteria.getKey()), criteria.getValue() + "%");
-            case ENDS_WITH -> builder.like(root.get(criteria.getKey()), "%" + criteria.getValue());
-            case CONTAINS -> builder.like(root.get(criteria.getKey()), "%" + criteria.getValue() + "%");
+            case GREATER_THAN, GREATER_THAN_OR_EQUAL, LESS_THAN, LESS_THAN_OR_EQUAL -> compare(root, builder);
+            case LIKE -> builder.like(text(root), criteria.getValue().toString());
+            case STARTS_WITH -> builder.like(text(root), criteria.getValue() + "%");
+            case ENDS_WITH -> builder.like(text(root), "%" + criteria.getValue());
+            case CONTAINS -> builder.like(text(root), "%" + criteria.getValue() + "%");
+            case IN -> root.get(criteria.getKey()).in((Collection<?>) criteria.getValue());
+            case IS_NULL -> builder.isNull(root.get(criteria.getKey()));
+            case IS_NOT_NULL -> builder.isNotNull(root.get(criteria.getKey()));
         };
     }
 
-}
+    // like operations compare as text, other attribute types are cast to a string
+    private Expression<String> text(Root<T> root) {
+        Path<String> path = root.get(criteria.getKey());
+        return String.class.equals(path.getJavaType()) ? path : path.as(String.class);
+    }
+
+    private <Y extends Comparable<? super Y>> Predicate compare(Root<T> root, CriteriaBuilder builder) {
+        Path<Y> path = root.get(criteria.getKey());
+        // values are converted to the attribute type by the builder, so the attribute and the value are comparable
+        @SuppressWarnings("unchecked")
+        Y value = (Y) criteria.getValue();
+        return switch (criteria.getOperation()) {
+            case GREATER_THAN -> builder.greaterThan(path, value);
+            case GREATER_THAN_OR_EQUAL -> builder.greaterThanOrEqualTo(path, value);
+            case LESS_THAN -> builder.lessThan(path, value);
+            case LESS_THAN_OR_EQUAL -> builder.lessThanOrEqualTo(path, value);
+            default -> throw new IllegalArgumentException("Not a comparison: " + criteria.getOperation());
+        };
+    }
 
+}
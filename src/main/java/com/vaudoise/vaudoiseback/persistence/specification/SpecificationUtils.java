@@ -1,36 +1,132 @@
 package com.vaudoise.vaudoiseback.persistence.specification;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * This utils is usable by all persistence services.
  */
 public class SpecificationUtils {
 
+    /**
+     * Maximum number of compiled search queries kept, least recently used are dropped first
+     */
+    public static final int MAX_COMPILED_QUERIES = 1024;
+
+    private static final Pattern QUERY_PATTERN = Pattern.compile(
+            "(\\w+?)(" + String.join("|", SearchOperation.SIMPLE_OPERATION_SET) + ")(\\*?)([^,]+?)(\\*?),",
+            Pattern.UNICODE_CHARACTER_CLASS);
+
+    // Lista de campos de auditoría a excluir
+    private static final Set<String> EXCLUDED_FIELDS = Set.of("createdAt", "modifiedAt", "createdBy", "modifiedBy");
+
+    /**
+     * Compiled specifications keyed by query, entity class and fields. Specifications only read their immutable
+     * criteria, so a compiled one can be shared by concurrent requests.
+     */
+    private static final Cache<List<Object>, Specification<?>> COMPILED_QUERIES = Caffeine.newBuilder()
+            .maximumSize(MAX_COMPILED_QUERIES)
+            .build();
+
+    /**
+     * Java type of every instance field of each class, computed once per class
+     */
+    private static final ClassValue<Map<String, Class<?>>> ATTRIBUTE_TYPES = new ClassValue<>() {
+        @Override
+        protected Map<String, Class<?>> computeValue(Class<?> type) {
+            Map<String, Class<?>> types = new LinkedHashMap<>();
+            getAllFields(type)
+                    .stream()
+                    .filter(field -> !Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers()))
+                    .forEach(field -> types.putIfAbsent(field.getName(), field.getType()));
+            return Collections.unmodifiableMap(types);
+        }
+    };
+
+    /**
+     * Searchable (String and UUID) fields of each class, computed once per class
+     */
+    private static final ClassValue<List<String>> SEARCHABLE_FIELDS = new ClassValue<>() {
+        @Override
+        protected List<String> computeValue(Class<?> type) {
+            return ATTRIBUTE_TYPES.get(type)
+                    .entrySet()
+                    .stream()
+                    .filter(entry -> !EXCLUDED_FIELDS.contains(entry.getKey()) &&
+                            (Objects.equals(entry.getValue(), String.class) || Objects.equals(entry.getValue(), UUID.class)))
+                    .map(Map.Entry::getKey)
+                    .toList();
+        }
+    };
+
     // non-instantiable class
     private SpecificationUtils() {
     }
 
+    /**
+     * Computes the searchable fields of an entity class ahead of its first search.
+     *
+     * @param tClass Entity class
+     */
+    public static void warmUp(final Class<?> tClass) {
+        SEARCHABLE_FIELDS.get(tClass);
+    }
+
+    /**
+     * Returns the Java type of each attribute of an entity class.
+     *
+     * @param tClass Entity class
+     * @return Attribute types by attribute name
+     */
+    static Map<String, Class<?>> getAttributeTypes(final Class<?> tClass) {
+        return ATTRIBUTE_TYPES.get(tClass);
+    }
+
     /**
      * Method ready to build a generic specification from a query and a given class for all his String fields.
+     * <p>
+     * The query is a comma separated list of attribute conditions, e.g. {@code cost>=100,endDate:null}:
+     * {@code :} equals ({@code *} wildcards turn it into a like, {@code a|b} into an in list, {@code null} into is null),
+     * {@code !} not equals ({@code !null} is not null), {@code >}, {@code >=}, {@code <}, {@code <=} ranges and
+     * {@code ~} like. Values are converted to the attribute type. A query without conditions is searched as text
+     * in the String fields.
      *
      * @param query  Query to be performed
      * @param tClass Class used to infer filterable fields
      * @param <T>    Class which specification belongs to
      * @return Search criteria as a Specification
+     * @throws IllegalArgumentException if the query names an unknown attribute or a value of the wrong type
      */
+    @SuppressWarnings("unchecked")
     public static <T> Specification<T> buildSpecificationFromQuery(final String query, final Class<T> tClass, String[] fields) {
-        GenericSpecificationsBuilder<T> builder = new GenericSpecificationsBuilder<>();
-        String operationSetExper = String.join("|", SearchOperation.SIMPLE_OPERATION_SET);
-        Pattern pattern = Pattern.compile("(\\w+?)(" + operationSetExper + ")(\\p{Punct}?)(\\w+?)(\\p{Punct}?),", Pattern.UNICODE_CHARACTER_CLASS);
-        Matcher matcher = pattern.matcher(query + ",");
+        List<Object> key = List.of(query, tClass, fields == null ? List.of() : List.of(fields));
+        return (Specification<T>) COMPILED_QUERIES.get(key, ignored -> compileQuery(query, tClass, fields));
+    }
+
+    public static <T> Specification<T> buildSpecificationFromQuery(final String query, final Class<T> tClass) {
+        return buildSpecificationFromQuery(query, tClass, null);
+    }
+
+
+    /**
+     * Parses a query into a specification, see {@link #buildSpecificationFromQuery(String, Class, String[])},
+     * bypassing the cache of compiled queries. Package visible for the parse benchmark.
+     *
+     * @return Search criteria as a Specification, or null if there is nothing to filter on
+     */
+    static <T> Specification<T> compileQuery(final String query, final Class<T> tClass, String[] fields) {
+        GenericSpecificationsBuilder<T> builder = new GenericSpecificationsBuilder<>(tClass);
+        Matcher matcher = QUERY_PATTERN.matcher(query + ",");
 
         while (matcher.find()) {
             builder.with(matcher.group(1), matcher.group(2), matcher.group(4), matcher.group(3), matcher.group(5));
@@ -41,20 +137,12 @@ public class SpecificationUtils {
         if (spec == null) {
             List<String> fieldList;
 
-            // Lista de campos de auditoría a excluir
-            List<String> excludeFields = Arrays.asList("createdAt", "modifiedAt", "createdBy", "modifiedBy");
-
             if (fields == null || fields.length == 0) {
-                fieldList = getAllFields(tClass)
-                        .stream()
-                        .filter(field -> !excludeFields.contains(field.getName()) &&
-                                (Objects.equals(field.getType(), String.class) || Objects.equals(field.getType(), UUID.class)))
-                        .map(Field::getName)
-                        .collect(Collectors.toList());
+                fieldList = SEARCHABLE_FIELDS.get(tClass);
             } else {
                 fieldList = Arrays.stream(fields)
-                        .filter(field -> !excludeFields.contains(field))
-                        .collect(Collectors.toList());
+                        .filter(field -> !EXCLUDED_FIELDS.contains(field))
+                        .toList();
             }
 
             fieldList.forEach(field ->
@@ -65,12 +153,6 @@ public class SpecificationUtils {
         return builder.build();
     }
 
-
-    public static <T> Specification<T> buildSpecificationFromQuery(final String query, final Class<T> tClass) {
-        return buildSpecificationFromQuery(query, tClass, null);
-    }
-
-
     /**
      * Method ready to build a generic specification to match entity id whith a list of ids
      *
@@ -81,6 +163,35 @@ public class SpecificationUtils {
         return (root, query, builder) -> builder.or(builder.in(root.get(field)).value(ids));
     }
 
+    /**
+     * Method ready to build a keyset (seek) specification selecting the rows after a given position,
+     * i.e. (field, id) > (value, lastId) for ascending order and (field, id) < (value, lastId) for descending order.
+     *
+     * @param field     sort field
+     * @param direction sort direction
+     * @param value     sort value of the last row already returned
+     * @param lastId    id of the last row already returned
+     * @param <T>       Class which specification belongs to
+     * @return Search criteria as a Specification
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> Specification<T> buildKeysetSpecification(final String field, final Sort.Direction direction, final Comparable value, final Long lastId) {
+        return (root, query, builder) -> {
+            Path<Long> id = root.get("id");
+            if ("id".equals(field)) {
+                return direction.isAscending() ? builder.greaterThan(id, lastId) : builder.lessThan(id, lastId);
+            }
+            Path<Comparable> path = root.get(field);
+            return builder.or(
+                    direction.isAscending() ? builder.greaterThan(path, value) : builder.lessThan(path, value),
+                    builder.and(
+                            builder.equal(path, value),
+                            direction.isAscending() ? builder.greaterThan(id, lastId) : builder.lessThan(id, lastId)
+                    )
+            );
+        };
+    }
+
     /**
      * Method ready to build a generic specification from a query given a specific field (like operation)
      *
@@ -123,6 +234,6 @@ public class SpecificationUtils {
      * @return List of all fields (own and inherited fields)
      */
     private static List<Field> getAllFields(Class<?> type) {
-        return getAllFields(new LinkedList<>(), type);
+        return getAllFields(new ArrayList<>(), type);
     }
 }
@@ -0,0 +1,68 @@
+package com.vaudoise.vaudoiseback.rest;
+
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import com.vaudoise.vaudoiseback.persistence.analytics.ContractGrouping;
+import com.vaudoise.vaudoiseback.persistence.service.ContractAnalyticsService;
+import com.vaudoise.vaudoiseback.rest.dto.ContractAnalyticsResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/v1/analytics")
+@Slf4j
+public class AnalyticsController {
+
+    private final ContractAnalyticsService contractAnalyticsService;
+
+    @Autowired
+    public AnalyticsController(ContractAnalyticsService contractAnalyticsService) {
+        this.contractAnalyticsService = contractAnalyticsService;
+    }
+
+    @Operation(
+            summary = "Contract portfolio analytics",
+            description = "Returns the count, total, average and 50th, 90th and 99th percentile cost of the contracts in force on the " +
+                    "as-of date (today by default), grouped by client type (groupBy=client-type), start month (start-month) or cost band (cost-band)"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "One row per group"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Error code - If the grouping is not supported",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Error code - If the analytics cannot be computed due to an internal error",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
+    })
+    @GetMapping(value = "/contracts", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ContractAnalyticsResponse> contracts(
+            @RequestParam(value = "groupBy", defaultValue = "client-type") String groupBy,
+            @RequestParam(value = "asOf", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf
+    ) throws CustomException {
+        ContractGrouping grouping = ContractGrouping.fromValue(groupBy);
+        try {
+            return ResponseEntity.ok(contractAnalyticsService.aggregate(grouping, asOf));
+        } catch (Exception ex) {
+            log.error("{}: {}", ErrorEnum.ANALYTICS_CONTRACTS.getDescription(), ex.getMessage());
+            throw new CustomException(ErrorEnum.ANALYTICS_CONTRACTS, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
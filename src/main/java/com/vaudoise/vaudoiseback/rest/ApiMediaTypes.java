@@ -0,0 +1,20 @@
+package com.vaudoise.vaudoiseback.rest;
+
+/**
+ * Media types served by the API that {@link org.springframework.http.MediaType} does not define
+ */
+public final class ApiMediaTypes {
+
+    /**
+     * Smile, the binary JSON encoding of Jackson
+     */
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    /**
+     * Sequence of concatenated CBOR documents (RFC 8742)
+     */
+    public static final String APPLICATION_CBOR_SEQ_VALUE = "application/cbor-seq";
+
+    private ApiMediaTypes() {
+    }
+}
@@ -0,0 +1,71 @@
+package com.vaudoise.vaudoiseback.rest;
+
+import com.vaudoise.vaudoiseback.config.security.AccessTokenService;
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import com.vaudoise.vaudoiseback.rest.dto.TokenResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/auth")
+@Slf4j
+public class AuthController {
+
+    private final AccessTokenService accessTokenService;
+
+    @Autowired
+    public AuthController(AccessTokenService accessTokenService) {
+        this.accessTokenService = accessTokenService;
+    }
+
+    @Operation(
+            summary = "Issue a bearer token",
+            description = "Exchanges the HTTP Basic credentials of the request for a signed token carrying the user roles. " +
+                    "Send it as \"Authorization: Bearer <token>\" on the next calls until it expires, then request a new one"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Token issued"),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Error code - If the credentials are missing or wrong"),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Error code - If the request is authenticated with a token instead of user name and password",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Error code - If the token cannot be issued due to an internal error",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
+    })
+    @PostMapping(value = "/token", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<TokenResponse> token(Authentication authentication) throws CustomException {
+        // A token must not be renewed with itself, otherwise a leaked token would stay valid forever
+        if (!(authentication instanceof UsernamePasswordAuthenticationToken)) {
+            throw new CustomException(ErrorEnum.AUTH_TOKEN_CREDENTIALS, HttpStatus.FORBIDDEN);
+        }
+        try {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .body(accessTokenService.issue(authentication));
+        } catch (Exception ex) {
+            log.error("{}: {}", ErrorEnum.AUTH_TOKEN_ISSUE.getDescription(), ex.getMessage());
+            throw new CustomException(ErrorEnum.AUTH_TOKEN_ISSUE, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.vaudoise.vaudoiseback.rest;
+
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import com.vaudoise.vaudoiseback.persistence.service.ChangeFeedService;
+import com.vaudoise.vaudoiseback.rest.dto.ChangeFeedPage;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/changes")
+@Slf4j
+public class ChangeController {
+
+    private final ChangeFeedService changeFeedService;
+
+    @Autowired
+    public ChangeController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    @Operation(
+            summary = "Client and contract changes",
+            description = "Returns the clients and contracts created, updated (UPSERT) or deleted (DELETE) after the cursor, " +
+                    "oldest first. Start without cursor, then pass the nextCursor of the previous page; hasMore tells " +
+                    "whether more changes are already available. Changes of the last seconds are only returned once settled"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page of changes, possibly empty"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Error code - If the cursor or the limit is not valid",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Error code - If the changes cannot be read due to an internal error",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
+    })
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ChangeFeedPage> changes(
+            @RequestParam(value = "since", required = false) String since,
+            @RequestParam(value = "limit", defaultValue = "100") int limit
+    ) throws CustomException {
+        try {
+            return ResponseEntity.ok(changeFeedService.changes(since, limit));
+        } catch (CustomException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            log.error("{}: {}", ErrorEnum.CHANGES_READ.getDescription(), ex.getMessage());
+            throw new CustomException(ErrorEnum.CHANGES_READ, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
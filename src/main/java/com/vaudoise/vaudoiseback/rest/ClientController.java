@@ -2,10 +2,17 @@ package com.vaudoise.vaudoiseback.rest;
 
 import com.vaudoise.vaudoiseback.exception.CustomException;
 import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import com.vaudoise.vaudoiseback.persistence.pagination.KeysetPageRequest;
+import com.vaudoise.vaudoiseback.persistence.service.ClientImportService;
 import com.vaudoise.vaudoiseback.persistence.service.ClientService;
+import com.vaudoise.vaudoiseback.rest.dto.ActiveContractSumsResponse;
+import com.vaudoise.vaudoiseback.rest.dto.BulkImportResponse;
 import com.vaudoise.vaudoiseback.rest.dto.ClientRequest;
 import com.vaudoise.vaudoiseback.rest.dto.ClientResponse;
 import com.vaudoise.vaudoiseback.rest.dto.ContractResponse;
+import com.vaudoise.vaudoiseback.rest.dto.CursorPage;
+import com.vaudoise.vaudoiseback.rest.dto.TaggedResponse;
+import com.vaudoise.vaudoiseback.rest.export.ExportFormat;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -14,17 +21,25 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.extern.slf4j.Slf4j;
 import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/clients")
@@ -32,15 +47,18 @@ import java.time.LocalDate;
 public class ClientController {
 
     private final ClientService clientService;
+    private final ClientImportService clientImportService;
 
     @Autowired
-    public ClientController(ClientService clientService) {
+    public ClientController(ClientService clientService, ClientImportService clientImportService) {
         this.clientService = clientService;
+        this.clientImportService = clientImportService;
     }
 
     @Operation(
             summary = "List clients",
-            description = "Returns a page of clients, filtered by query if provided"
+            description = "Returns a page of clients, filtered by query if provided. With withTotal=false a slice is returned " +
+                    "instead, which tells whether there is a next page without counting the matching clients"
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "A page of clients"),
@@ -49,13 +67,47 @@ public class ClientController {
                     description = "Error code - If clients cannot be retrieved due to an internal error",
                     content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
     })
-    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Page<ClientResponse>> browse(
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<Slice<ClientResponse>> browse(
             @RequestParam(value = "query", required = false) String query,
+            @RequestParam(value = "withTotal", defaultValue = "true") boolean withTotal,
             @ParameterObject @PageableDefault(size = 20, sort = "id", direction = Sort.Direction.ASC) Pageable pageable
     ) throws CustomException {
         try {
-            return ResponseEntity.ok(clientService.browse(query, pageable));
+            return ResponseEntity.ok(clientService.browse(query, pageable, withTotal));
+        } catch (Exception ex) {
+            throw new CustomException(ErrorEnum.CLIENT_LIST, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Operation(
+            summary = "Scroll clients",
+            description = "Returns a keyset page of clients, filtered by query if provided. Pass the returned nextCursor as 'after' to read the next page"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "A keyset page of clients"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Error code - If the cursor or the sort are not valid",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Error code - If clients cannot be retrieved due to an internal error",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
+    })
+    @GetMapping(params = "limit", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<CursorPage<ClientResponse>> scroll(
+            @RequestParam(value = "query", required = false) String query,
+            @RequestParam(value = "limit") int limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "direction", required = false) String direction
+    ) throws CustomException {
+        try {
+            KeysetPageRequest request = KeysetPageRequest.of(sort, direction, limit, after, ClientService.MAX_PAGE_SIZE);
+            return ResponseEntity.ok(clientService.scroll(query, request));
+        } catch (CustomException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new CustomException(ErrorEnum.CLIENT_LIST, HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -74,7 +126,7 @@ public class ClientController {
                     description = "Error code - If contracts cannot be retrieved due to an internal error",
                     content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
     })
-    @GetMapping(value = "/{clientId}/contracts/active", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(value = "/{clientId}/contracts/active", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
     public ResponseEntity<Page<ContractResponse>> getActiveContracts(
             @PathVariable Long clientId,
             @RequestParam(value = "updatedAfter", required = false) LocalDate updatedAfter,
@@ -101,7 +153,7 @@ public class ClientController {
                     description = "Error code - If the sum cannot be retrieved due to an internal error",
                     content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
     })
-    @GetMapping(value = "/{clientId}/contracts/active/sum", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(value = "/{clientId}/contracts/active/sum", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
     public ResponseEntity<String> getSumOfActiveContracts(@PathVariable Long clientId) throws CustomException {
         try {
             return ResponseEntity.ok(clientService.getSumOfActiveContracts(clientId).toString());
@@ -110,6 +162,93 @@ public class ClientController {
         }
     }
 
+    @Operation(
+            summary = "Get sums of active contracts for several clients",
+            description = "Returns the total sum of all active contracts for each of the given client IDs (at most " +
+                    ClientService.MAX_SUM_CLIENTS + "). IDs without client are listed as missing"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Sums of active contracts of the existing clients, and the missing client IDs"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Error code - If too many clients are requested",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Error code - If the sums cannot be retrieved due to an internal error",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
+    })
+    @PostMapping(value = "/contracts/active/sums", consumes = MediaType.APPLICATION_JSON_VALUE, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<ActiveContractSumsResponse> getSumsOfActiveContracts(@RequestBody List<Long> clientIds) throws CustomException {
+        try {
+            return ResponseEntity.ok(clientService.getSumsOfActiveContracts(clientIds));
+        } catch (CustomException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new CustomException(ErrorEnum.CLIENT_CONTRACT_SUM, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Operation(
+            summary = "Export clients",
+            description = "Streams every client as NDJSON (format=ndjson), CSV (format=csv), or back to back CBOR (format=cbor) " +
+                    "or Smile (format=smile) documents"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "All clients, one per line"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Error code - If the export format is not supported",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
+    })
+    @GetMapping(value = "/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format
+    ) throws CustomException {
+        ExportFormat exportFormat = ExportFormat.fromValue(format);
+        StreamingResponseBody body = out -> {
+            try {
+                clientService.export(exportFormat, out);
+            } catch (RuntimeException ex) {
+                log.error("{}: {}", ErrorEnum.CLIENT_EXPORT.getDescription(), ex.getMessage());
+                throw ex;
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"clients." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    @Operation(
+            summary = "Fetch an existing client by uuid",
+            description = "Fetches an existing client by its uuid and returns it"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Fetched client",
+                    content = {@Content(schema = @Schema(implementation = ClientResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Error code - If the client is not found",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
+    })
+    @GetMapping(value = "/uuid/{uuid}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<ClientResponse> readByUuid(@PathVariable UUID uuid) throws CustomException {
+        try {
+            return ResponseEntity.ok(clientService.readByUuid(uuid));
+        } catch (CustomException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new CustomException(ErrorEnum.CLIENT_READ, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @Operation(
             summary = "Fetch an existing client",
             description = "Fetches an existing client and returns it"
@@ -119,15 +258,21 @@ public class ClientController {
                     responseCode = "200",
                     description = "Fetched client",
                     content = {@Content(schema = @Schema(implementation = ClientResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(responseCode = "304", description = "Not modified - If the If-None-Match header holds the current entity tag"),
             @ApiResponse(
                     responseCode = "400",
                     description = "Error code - If the client is not found",
                     content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
     })
-    @GetMapping(value = "/{clientId}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<ClientResponse> read(@PathVariable Long clientId) throws CustomException {
+    @GetMapping(value = "/{clientId}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<ClientResponse> read(@PathVariable Long clientId, WebRequest webRequest) throws CustomException {
         try {
-            return ResponseEntity.ok(clientService.read(clientId));
+            // the tag is read before the body, a body newer than its tag is only sent again on the next poll
+            String entityTag = clientService.entityTag(clientId);
+            if (webRequest.checkNotModified(entityTag)) {
+                return null;
+            }
+            return ResponseEntity.ok().eTag(entityTag).body(clientService.read(clientId));
         } catch (CustomException ex) {
             throw ex;
         } catch (Exception ex) {
@@ -149,7 +294,7 @@ public class ClientController {
                     description = "Error code - If the client cannot be created due to an internal error",
                     content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
     })
-    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
     public ResponseEntity<ClientResponse> add(@RequestBody ClientRequest request) throws CustomException {
         try {
             return ResponseEntity.status(HttpStatus.CREATED).body(clientService.add(request));
@@ -160,6 +305,40 @@ public class ClientController {
         }
     }
 
+    @Operation(
+            summary = "Import clients",
+            description = "Creates clients from a streamed NDJSON (application/x-ndjson), CSV (text/csv), CBOR sequence (application/cbor-seq) " +
+                    "or Smile (application/x-jackson-smile) body, with a header line for CSV. " +
+                    "Valid rows are imported even if others are rejected, the rejected rows are reported with their line"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Import report",
+                    content = {@Content(schema = @Schema(implementation = BulkImportResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Error code - If the import format is not supported",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Error code - If the clients cannot be imported due to an internal error",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
+    })
+    @PostMapping(value = "/bulk", consumes = {"application/x-ndjson", "text/csv", ApiMediaTypes.APPLICATION_CBOR_SEQ_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE}, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<BulkImportResponse> bulk(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body
+    ) throws CustomException {
+        ExportFormat format = ExportFormat.fromMediaType(contentType);
+        try {
+            return ResponseEntity.ok(clientImportService.importClients(format, body));
+        } catch (Exception ex) {
+            log.error("{}: {}", ErrorEnum.CLIENT_IMPORT.getDescription(), ex.getMessage());
+            throw new CustomException(ErrorEnum.CLIENT_IMPORT, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @Operation(
             summary = "Update an existing client",
             description = "Updates an existing client and returns it"
@@ -173,17 +352,32 @@ public class ClientController {
                     responseCode = "400",
                     description = "Error code - If the client is not found",
                     content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Error code - If the client was updated concurrently",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "Error code - If the If-Match header does not match the current version of the client",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
             @ApiResponse(
                     responseCode = "500",
                     description = "Error code - If the client cannot be updated due to an internal error",
                     content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
     })
-    @PutMapping(value = "/{clientId}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<ClientResponse> update(@PathVariable Long clientId, @RequestBody ClientRequest request) throws CustomException {
+    @PutMapping(value = "/{clientId}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<ClientResponse> update(
+            @PathVariable Long clientId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody ClientRequest request
+    ) throws CustomException {
         try {
-            return ResponseEntity.ok(clientService.update(clientId, request));
+            TaggedResponse<ClientResponse> response = clientService.update(clientId, request, ifMatch);
+            return ResponseEntity.ok().eTag(response.getEntityTag()).body(response.getBody());
         } catch (CustomException ex) {
             throw ex;
+        } catch (OptimisticLockingFailureException ex) {
+            throw new CustomException(ErrorEnum.CLIENT_PRECONDITION, ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
         } catch (Exception ex) {
             throw new CustomException(ErrorEnum.CLIENT_UPDATE, HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -207,7 +401,7 @@ public class ClientController {
                     description = "Error code - If the client cannot be deleted due to an internal error",
                     content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
     })
-    @DeleteMapping(value = "/{clientId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @DeleteMapping(value = "/{clientId}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
     public ResponseEntity<ClientResponse> delete(@PathVariable Long clientId) throws CustomException {
         try {
             return ResponseEntity.ok(clientService.delete(clientId));
@@ -2,9 +2,16 @@ package com.vaudoise.vaudoiseback.rest;
 
 import com.vaudoise.vaudoiseback.exception.CustomException;
 import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import com.vaudoise.vaudoiseback.persistence.pagination.KeysetPageRequest;
 import com.vaudoise.vaudoiseback.persistence.service.ContractService;
+import com.vaudoise.vaudoiseback.rest.dto.ContractBatchResponse;
+import com.vaudoise.vaudoiseback.rest.dto.ContractFilter;
+import com.vaudoise.vaudoiseback.rest.dto.ContractOperation;
 import com.vaudoise.vaudoiseback.rest.dto.ContractRequest;
 import com.vaudoise.vaudoiseback.rest.dto.ContractResponse;
+import com.vaudoise.vaudoiseback.rest.dto.CursorPage;
+import com.vaudoise.vaudoiseback.rest.dto.TaggedResponse;
+import com.vaudoise.vaudoiseback.rest.export.ExportFormat;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -13,15 +20,22 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.extern.slf4j.Slf4j;
 import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/contracts")
@@ -37,29 +51,131 @@ public class ContractController {
 
     @Operation(
             summary = "List contracts",
-            description = "Returns a page of contracts, optionally filtered by client ID"
+            description = "Returns a page of contracts, optionally filtered by client ID, start and end date ranges, cost range, active state " +
+                    "and a search query such as 'cost>=100,startDate<2025-01-01,endDate:null' (operators : ! > >= < <= ~, 'a|b' lists). " +
+                    "With withTotal=false a slice is returned instead, which tells whether there is a next page without counting the matching contracts"
     )
     @ApiResponses({
             @ApiResponse(
                     responseCode = "200",
                     description = "A page of contracts"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Error code - If the search query is not valid",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
             @ApiResponse(
                     responseCode = "500",
                     description = "Error code - If contracts cannot be retrieved due to an internal error",
                     content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
     })
-    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Page<ContractResponse>> browse(
-            @RequestParam(value = "clientId", required = false) Long clientId,
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<Slice<ContractResponse>> browse(
+            @ParameterObject ContractFilter filter,
+            @RequestParam(value = "withTotal", defaultValue = "true") boolean withTotal,
             @ParameterObject @PageableDefault(size = 20, sort = "id", direction = Sort.Direction.ASC) Pageable pageable
     ) throws CustomException {
         try {
-            return ResponseEntity.ok(contractService.browse(clientId, pageable));
+            return ResponseEntity.ok(contractService.browse(filter, pageable, withTotal));
+        } catch (CustomException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new CustomException(ErrorEnum.CONTRACT_LIST, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Operation(
+            summary = "Scroll contracts",
+            description = "Returns a keyset page of contracts, optionally filtered like the contract list. Pass the returned nextCursor as 'after' to read the next page"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "A keyset page of contracts"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Error code - If the cursor, the sort or the search query are not valid",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Error code - If contracts cannot be retrieved due to an internal error",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
+    })
+    @GetMapping(params = "limit", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<CursorPage<ContractResponse>> scroll(
+            @ParameterObject ContractFilter filter,
+            @RequestParam(value = "limit") int limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "direction", required = false) String direction
+    ) throws CustomException {
+        try {
+            KeysetPageRequest request = KeysetPageRequest.of(sort, direction, limit, after, ContractService.MAX_PAGE_SIZE);
+            return ResponseEntity.ok(contractService.scroll(filter, request));
+        } catch (CustomException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new CustomException(ErrorEnum.CONTRACT_LIST, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    @Operation(
+            summary = "Export contracts",
+            description = "Streams every contract as NDJSON (format=ndjson), CSV (format=csv), or back to back CBOR (format=cbor) " +
+                    "or Smile (format=smile) documents"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "All contracts, one per line"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Error code - If the export format is not supported",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
+    })
+    @GetMapping(value = "/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format
+    ) throws CustomException {
+        ExportFormat exportFormat = ExportFormat.fromValue(format);
+        StreamingResponseBody body = out -> {
+            try {
+                contractService.export(exportFormat, out);
+            } catch (RuntimeException ex) {
+                log.error("{}: {}", ErrorEnum.CONTRACT_EXPORT.getDescription(), ex.getMessage());
+                throw ex;
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"contracts." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    @Operation(
+            summary = "Fetch an existing contract by uuid",
+            description = "Fetches an existing contract by its uuid and returns it"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Fetched contract",
+                    content = {@Content(schema = @Schema(implementation = ContractResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Error code - If the contract is not found",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
+    })
+    @GetMapping(value = "/uuid/{uuid}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<ContractResponse> readByUuid(@PathVariable UUID uuid) throws CustomException {
+        try {
+            return ResponseEntity.ok(contractService.readByUuid(uuid));
+        } catch (CustomException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new CustomException(ErrorEnum.CONTRACT_READ, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @Operation(
             summary = "Fetch an existing contract",
             description = "Fetches a contract by ID"
@@ -69,15 +185,21 @@ public class ContractController {
                     responseCode = "200",
                     description = "Fetched contract",
                     content = {@Content(schema = @Schema(implementation = ContractResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(responseCode = "304", description = "Not modified - If the If-None-Match header holds the current entity tag"),
             @ApiResponse(
                     responseCode = "400",
                     description = "Error code - If contract with given ID does not exist",
                     content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
     })
-    @GetMapping(value = "/{contractId}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<ContractResponse> read(@PathVariable Long contractId) throws CustomException {
+    @GetMapping(value = "/{contractId}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<ContractResponse> read(@PathVariable Long contractId, WebRequest webRequest) throws CustomException {
         try {
-            return ResponseEntity.ok(contractService.read(contractId));
+            // the tag is read before the body, a body newer than its tag is only sent again on the next poll
+            String entityTag = contractService.entityTag(contractId);
+            if (webRequest.checkNotModified(entityTag)) {
+                return null;
+            }
+            return ResponseEntity.ok().eTag(entityTag).body(contractService.read(contractId));
         } catch (CustomException ex) {
             throw ex;
         } catch (Exception ex) {
@@ -99,7 +221,7 @@ public class ContractController {
                     description = "Error code - If contract cannot be created due to an internal error",
                     content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
     })
-    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
     public ResponseEntity<ContractResponse> add(@RequestBody ContractRequest request) throws CustomException {
         try {
             return ResponseEntity.status(HttpStatus.CREATED).body(contractService.add(request));
@@ -110,6 +232,38 @@ public class ContractController {
         }
     }
 
+    @Operation(
+            summary = "Apply contract operations",
+            description = "Creates, updates and deletes contracts in a single transaction. Every operation is validated first, " +
+                    "and none is applied if any is not valid. A contract can only be targeted by one operation of the batch"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Operations applied, with the resulting contracts",
+                    content = {@Content(schema = @Schema(implementation = ContractBatchResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Operations not applied, with the errors of the operations that are not valid",
+                    content = {@Content(schema = @Schema(implementation = ContractBatchResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Error code - If the operations cannot be applied due to an internal error",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
+    })
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<ContractBatchResponse> batch(@RequestBody List<ContractOperation> operations) throws CustomException {
+        try {
+            ContractBatchResponse response = contractService.batch(operations);
+            return ResponseEntity.status(response.isApplied() ? HttpStatus.OK : HttpStatus.BAD_REQUEST).body(response);
+        } catch (CustomException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            log.error("{}: {}", ErrorEnum.CONTRACT_BATCH.getDescription(), ex.getMessage());
+            throw new CustomException(ErrorEnum.CONTRACT_BATCH, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @Operation(
             summary = "Update an existing contract",
             description = "Updates a contract"
@@ -123,17 +277,32 @@ public class ContractController {
                     responseCode = "400",
                     description = "Error code - If the contract is not found",
                     content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Error code - If the contract was updated concurrently",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
+            @ApiResponse(
+                    responseCode = "412",
+                    description = "Error code - If the If-Match header does not match the current version of the contract",
+                    content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)}),
             @ApiResponse(
                     responseCode = "500",
                     description = "Error code - If the contract cannot be updated due to an internal error",
                     content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
     })
-    @PutMapping(value = "/{contractId}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<ContractResponse> update(@PathVariable Long contractId, @RequestBody ContractRequest request) throws CustomException {
+    @PutMapping(value = "/{contractId}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<ContractResponse> update(
+            @PathVariable Long contractId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody ContractRequest request
+    ) throws CustomException {
         try {
-            return ResponseEntity.ok(contractService.update(contractId, request));
+            TaggedResponse<ContractResponse> response = contractService.update(contractId, request, ifMatch);
+            return ResponseEntity.ok().eTag(response.getEntityTag()).body(response.getBody());
         } catch (CustomException ex) {
             throw ex;
+        } catch (OptimisticLockingFailureException ex) {
+            throw new CustomException(ErrorEnum.CONTRACT_PRECONDITION, ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
         } catch (Exception ex) {
             throw new CustomException(ErrorEnum.CONTRACT_UPDATE, HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -157,7 +326,7 @@ public class ContractController {
                     description = "Error code - If the contract cannot be deleted due to an internal error",
                     content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = MediaType.APPLICATION_JSON_VALUE)})
     })
-    @DeleteMapping(value = "/{contractId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @DeleteMapping(value = "/{contractId}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApiMediaTypes.APPLICATION_SMILE_VALUE})
     public ResponseEntity<ContractResponse> delete(@PathVariable Long contractId) throws CustomException {
         try {
             return ResponseEntity.ok(contractService.delete(contractId));
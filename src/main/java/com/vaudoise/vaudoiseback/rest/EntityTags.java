@@ -0,0 +1,46 @@
+package com.vaudoise.vaudoiseback.rest;
+
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Strong entity tags of the single-row representations, built from the id and the version of the rows they show.
+ */
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    /**
+     * Builds the quoted tag of a representation.
+     *
+     * @param id       Id of the entity
+     * @param versions Versions of the rows shown by the representation, null ones are skipped
+     * @return Entity tag, quotes included
+     */
+    public static String of(Long id, Long... versions) {
+        String value = Stream.concat(Stream.of(id), Stream.of(versions))
+                .filter(Objects::nonNull)
+                .map(String::valueOf)
+                .collect(Collectors.joining("-"));
+        return "\"" + value + "\"";
+    }
+
+    /**
+     * Evaluates an If-Match header with the strong comparison: weak tags never match.
+     *
+     * @param ifMatch   Header value, a list of tags or *
+     * @param entityTag Current tag of the representation
+     * @return True if the precondition holds
+     */
+    public static boolean matches(String ifMatch, String entityTag) {
+        for (String tag : ifMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.equals("*") || candidate.equals(entityTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
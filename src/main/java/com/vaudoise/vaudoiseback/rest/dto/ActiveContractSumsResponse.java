@@ -0,0 +1,23 @@
+package com.vaudoise.vaudoiseback.rest.dto;
+
+import com.vaudoise.vaudoiseback.persistence.readmodel.ClientContractTotal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActiveContractSumsResponse implements Serializable {
+    /**
+     * Active contract total of every requested client that exists, in request order
+     */
+    private List<ClientContractTotal> totals;
+    /**
+     * Requested ids without client
+     */
+    private List<Long> missingClientIds;
+}
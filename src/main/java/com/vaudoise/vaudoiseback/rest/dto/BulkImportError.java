@@ -0,0 +1,19 @@
+package com.vaudoise.vaudoiseback.rest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportError implements Serializable {
+    /**
+     * Line of the input the rejected row starts at, 1-based
+     */
+    private long line;
+    private String error;
+    private String message;
+}
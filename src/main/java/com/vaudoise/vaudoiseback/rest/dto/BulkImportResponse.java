@@ -0,0 +1,21 @@
+package com.vaudoise.vaudoiseback.rest.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class BulkImportResponse implements Serializable {
+    private long received;
+    private long imported;
+    private long rejected;
+    /**
+     * Rejected rows, ordered by line. Only the first rows are reported when errorsTruncated is set
+     */
+    private List<BulkImportError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+}
@@ -0,0 +1,34 @@
+package com.vaudoise.vaudoiseback.rest.dto;
+
+import com.vaudoise.vaudoiseback.persistence.entities.enums.ChangeEntityType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEntry implements Serializable {
+
+    public enum Operation {
+        UPSERT,
+        DELETE
+    }
+
+    private ChangeEntityType entity;
+    private Operation operation;
+    private Long id;
+    private UUID uuid;
+    /**
+     * Modification time of an upsert, deletion time of a delete
+     */
+    private LocalDateTime modifiedAt;
+    /**
+     * Current state of the client or contract, null for a delete
+     */
+    private Object data;
+}
@@ -0,0 +1,23 @@
+package com.vaudoise.vaudoiseback.rest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedPage implements Serializable {
+    private List<ChangeEntry> changes;
+    /**
+     * True when more changes are already available after this page
+     */
+    private boolean hasMore;
+    /**
+     * Cursor to resume from, returned even when the page is empty
+     */
+    private String nextCursor;
+}
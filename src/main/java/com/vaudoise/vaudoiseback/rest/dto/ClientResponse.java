@@ -4,6 +4,7 @@ import com.vaudoise.vaudoiseback.persistence.entities.Client;
 import com.vaudoise.vaudoiseback.persistence.entities.CompanyClient;
 import com.vaudoise.vaudoiseback.persistence.entities.PersonClient;
 import com.vaudoise.vaudoiseback.persistence.entities.enums.ClientType;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -13,6 +14,7 @@ import java.util.UUID;
 
 @Data
 @NoArgsConstructor
+@AllArgsConstructor
 public class ClientResponse implements Serializable {
     private Long id;
     private UUID uuid;
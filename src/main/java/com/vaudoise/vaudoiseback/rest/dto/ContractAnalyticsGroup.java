@@ -0,0 +1,24 @@
+package com.vaudoise.vaudoiseback.rest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContractAnalyticsGroup implements Serializable {
+    /**
+     * Client type, start month (yyyy-MM) or cost band, depending on the grouping
+     */
+    private String key;
+    private long count;
+    private BigDecimal total;
+    private BigDecimal average;
+    private BigDecimal p50;
+    private BigDecimal p90;
+    private BigDecimal p99;
+}
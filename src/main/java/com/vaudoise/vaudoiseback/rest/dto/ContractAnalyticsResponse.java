@@ -0,0 +1,21 @@
+package com.vaudoise.vaudoiseback.rest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContractAnalyticsResponse implements Serializable {
+    private String groupBy;
+    /**
+     * Date on which the aggregated contracts are in force
+     */
+    private LocalDate asOf;
+    private List<ContractAnalyticsGroup> groups;
+}
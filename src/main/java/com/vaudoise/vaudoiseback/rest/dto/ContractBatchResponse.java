@@ -0,0 +1,19 @@
+package com.vaudoise.vaudoiseback.rest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContractBatchResponse implements Serializable {
+    /**
+     * False if any operation is not valid, nothing is written then
+     */
+    private boolean applied;
+    private List<ContractOperationResult> results;
+}
@@ -0,0 +1,30 @@
+package com.vaudoise.vaudoiseback.rest.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+public class ContractFilter implements Serializable {
+    private Long clientId;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDateFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDateTo;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDateFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDateTo;
+    private BigDecimal costMin;
+    private BigDecimal costMax;
+    private boolean activeOnly;
+    /**
+     * Search query on the contract attributes, e.g. cost>=100,endDate:null
+     */
+    private String query;
+}
@@ -0,0 +1,29 @@
+package com.vaudoise.vaudoiseback.rest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContractOperation implements Serializable {
+
+    public enum Type {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    private Type type;
+    /**
+     * Contract to update or delete
+     */
+    private Long id;
+    /**
+     * Contract to create, or its new values
+     */
+    private ContractRequest contract;
+}
@@ -0,0 +1,24 @@
+package com.vaudoise.vaudoiseback.rest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContractOperationResult implements Serializable {
+    /**
+     * Position of the operation in the request, 0-based
+     */
+    private int index;
+    private ContractOperation.Type type;
+    private String error;
+    private String message;
+    /**
+     * Contract as written, null if the batch was not applied
+     */
+    private ContractResponse contract;
+}
@@ -1,6 +1,7 @@
 package com.vaudoise.vaudoiseback.rest.dto;
 
 import com.vaudoise.vaudoiseback.persistence.entities.Contract;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -11,6 +12,7 @@ import java.util.UUID;
 
 @Data
 @NoArgsConstructor
+@AllArgsConstructor
 public class ContractResponse implements Serializable {
 
     private Long id;
@@ -0,0 +1,14 @@
+package com.vaudoise.vaudoiseback.rest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Representation with the entity tag of the state it was built from
+ */
+@Data
+@AllArgsConstructor
+public class TaggedResponse<T> {
+    private T body;
+    private String entityTag;
+}
@@ -0,0 +1,26 @@
+package com.vaudoise.vaudoiseback.rest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenResponse implements Serializable {
+    private String accessToken;
+    /**
+     * Always Bearer: the token goes in an "Authorization: Bearer" header
+     */
+    private String tokenType;
+    /**
+     * Seconds until the token expires
+     */
+    private long expiresIn;
+    private Instant expiresAt;
+    private List<String> roles;
+}
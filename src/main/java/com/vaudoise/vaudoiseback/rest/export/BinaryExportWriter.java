@@ -0,0 +1,38 @@
+package com.vaudoise.vaudoiseback.rest.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes one binary document (CBOR or Smile) per row, back to back.
+ */
+public class BinaryExportWriter<T> implements ExportWriter<T> {
+
+    private final OutputStream out;
+    private final SequenceWriter writer;
+
+    /**
+     * @param binaryMapper Mapper over the binary factory of the format
+     */
+    public BinaryExportWriter(OutputStream out, ObjectMapper binaryMapper, Class<T> type) throws IOException {
+        this.out = out;
+        this.writer = binaryMapper.writerFor(type)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValues(out);
+    }
+
+    @Override
+    public void write(T row) throws IOException {
+        writer.write(row);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+        out.flush();
+    }
+}
@@ -0,0 +1,43 @@
+package com.vaudoise.vaudoiseback.rest.export;
+
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads back to back binary documents (CBOR or Smile). Rows are numbered by document, a document that does not
+ * bind to the row type is reported and skipped, while a corrupted stream fails the import.
+ */
+public class BinaryImportReader<T> implements ImportReader<T> {
+
+    private final MappingIterator<T> iterator;
+    private long document;
+
+    /**
+     * @param binaryMapper Mapper over the binary factory of the format
+     */
+    public BinaryImportReader(InputStream in, ObjectMapper binaryMapper, Class<T> type) throws IOException {
+        this.iterator = binaryMapper.readerFor(type).readValues(in);
+    }
+
+    @Override
+    public ImportRow<T> next() throws IOException {
+        if (!iterator.hasNextValue()) {
+            return null;
+        }
+        document++;
+        try {
+            return new ImportRow<>(document, iterator.nextValue(), null);
+        } catch (DatabindException ex) {
+            return new ImportRow<>(document, null, ex.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        iterator.close();
+    }
+}
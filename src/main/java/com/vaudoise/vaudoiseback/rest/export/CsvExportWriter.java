@@ -0,0 +1,58 @@
+package com.vaudoise.vaudoiseback.rest.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Writes rows as RFC 4180 CSV, with a header line built from the column names.
+ */
+public class CsvExportWriter<T> implements ExportWriter<T> {
+
+    private final Writer writer;
+    private final Map<String, Function<T, Object>> columns;
+
+    public CsvExportWriter(OutputStream out, Map<String, Function<T, Object>> columns) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.columns = columns;
+        boolean first = true;
+        for (String name : columns.keySet()) {
+            first = writeValue(name, first);
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void write(T row) throws IOException {
+        boolean first = true;
+        for (Function<T, Object> column : columns.values()) {
+            first = writeValue(column.apply(row), first);
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    private boolean writeValue(Object value, boolean first) throws IOException {
+        if (!first) writer.write(',');
+        writer.write(escape(value));
+        return false;
+    }
+
+    private static String escape(Object value) {
+        if (value == null) return "";
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
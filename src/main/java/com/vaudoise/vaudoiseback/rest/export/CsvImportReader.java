@@ -0,0 +1,117 @@
+package com.vaudoise.vaudoiseback.rest.export;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads RFC 4180 CSV. The first record is the header, its names are the properties of the row type.
+ * Empty fields are read as null, values are converted with the same rules as JSON.
+ */
+public class CsvImportReader<T> implements ImportReader<T> {
+
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private final Class<T> type;
+    private final StringBuilder field = new StringBuilder();
+    private List<String> header;
+    private long line = 1;
+    private boolean eof;
+
+    public CsvImportReader(InputStream in, ObjectMapper objectMapper, Class<T> type) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.objectMapper = objectMapper;
+        this.type = type;
+    }
+
+    @Override
+    public ImportRow<T> next() throws IOException {
+        if (header == null) {
+            header = readRecord();
+            if (header == null) return null;
+        }
+
+        List<String> record;
+        long start;
+        do {
+            start = line;
+            record = readRecord();
+            if (record == null) return null;
+        } while (record.size() == 1 && record.get(0).isEmpty());
+
+        if (record.size() != header.size()) {
+            return new ImportRow<>(start, null, "Expected " + header.size() + " fields but found " + record.size());
+        }
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String value = record.get(i);
+            if (!value.isEmpty()) values.put(header.get(i), value);
+        }
+        try {
+            return new ImportRow<>(start, objectMapper.convertValue(values, type), null);
+        } catch (IllegalArgumentException ex) {
+            String message = ex.getCause() instanceof JsonProcessingException cause ? cause.getOriginalMessage() : ex.getMessage();
+            return new ImportRow<>(start, null, message);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads the fields of the next record, quoted fields may span several lines.
+     *
+     * @return Fields, or null at the end of the input
+     */
+    private List<String> readRecord() throws IOException {
+        if (eof) return null;
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean any = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        eof = true;
+        if (!any) return null;
+        fields.add(field.toString());
+        return fields;
+    }
+}
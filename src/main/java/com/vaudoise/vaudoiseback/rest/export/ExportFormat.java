@@ -0,0 +1,105 @@
+package com.vaudoise.vaudoiseback.rest.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import com.vaudoise.vaudoiseback.rest.ApiMediaTypes;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Supported export and import formats
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv"),
+    CBOR(ApiMediaTypes.APPLICATION_CBOR_SEQ_VALUE, "cbor"),
+    SMILE(ApiMediaTypes.APPLICATION_SMILE_VALUE, "smile");
+
+    private final String mediaType;
+    private final String extension;
+
+    /**
+     * Opens a writer for this format.
+     *
+     * @param out          Output stream
+     * @param objectMapper Mapper used for JSON based formats
+     * @param type         Row type
+     * @param columns      Ordered columns used for tabular formats
+     * @return Export writer
+     */
+    public <T> ExportWriter<T> writer(OutputStream out, ObjectMapper objectMapper, Class<T> type, Map<String, Function<T, Object>> columns) throws IOException {
+        return switch (this) {
+            case NDJSON -> new NdjsonExportWriter<>(out, objectMapper, type);
+            case CSV -> new CsvExportWriter<>(out, columns);
+            case CBOR, SMILE -> new BinaryExportWriter<>(out, binaryMapper(objectMapper), type);
+        };
+    }
+
+    /**
+     * Opens a reader for this format.
+     *
+     * @param in           Input stream
+     * @param objectMapper Mapper used to convert the rows
+     * @param type         Row type
+     * @return Import reader
+     */
+    public <T> ImportReader<T> reader(InputStream in, ObjectMapper objectMapper, Class<T> type) throws IOException {
+        return switch (this) {
+            case NDJSON -> new NdjsonImportReader<>(in, objectMapper, type);
+            case CSV -> new CsvImportReader<>(in, objectMapper, type);
+            case CBOR, SMILE -> new BinaryImportReader<>(in, binaryMapper(objectMapper), type);
+        };
+    }
+
+    /**
+     * Copies the JSON mapper, settings and modules included, over the binary factory of this format.
+     */
+    private ObjectMapper binaryMapper(ObjectMapper objectMapper) {
+        return objectMapper.copyWith(this == CBOR ? new CBORFactory() : new SmileFactory());
+    }
+
+    /**
+     * Resolves a format from a request content type, ignoring its parameters.
+     *
+     * @throws CustomException if the format is not supported
+     */
+    public static ExportFormat fromMediaType(String contentType) throws CustomException {
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException ex) {
+            throw new CustomException(ErrorEnum.EXPORT_FORMAT, HttpStatus.BAD_REQUEST);
+        }
+        return Arrays.stream(values())
+                .filter(format -> MediaType.parseMediaType(format.mediaType).equalsTypeAndSubtype(mediaType))
+                .findFirst()
+                .orElseThrow(() -> new CustomException(ErrorEnum.EXPORT_FORMAT, HttpStatus.BAD_REQUEST));
+    }
+
+    /**
+     * Resolves a format from its extension, case-insensitive.
+     *
+     * @throws CustomException if the format is not supported
+     */
+    public static ExportFormat fromValue(String value) throws CustomException {
+        return Arrays.stream(values())
+                .filter(format -> format.extension.equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new CustomException(ErrorEnum.EXPORT_FORMAT, HttpStatus.BAD_REQUEST));
+    }
+}
@@ -0,0 +1,20 @@
+package com.vaudoise.vaudoiseback.rest.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes exported rows one by one to an output stream, without buffering the whole export.
+ *
+ * @param <T> Row type
+ */
+public interface ExportWriter<T> extends Closeable {
+
+    /**
+     * Writes a single row.
+     *
+     * @param row Row to write
+     * @throws IOException if the output cannot be written
+     */
+    void write(T row) throws IOException;
+}
@@ -0,0 +1,21 @@
+package com.vaudoise.vaudoiseback.rest.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads imported rows one by one from an input stream, without buffering the whole import.
+ * A row that cannot be parsed is returned with an error instead of failing the whole import.
+ *
+ * @param <T> Row type
+ */
+public interface ImportReader<T> extends Closeable {
+
+    /**
+     * Reads the next row.
+     *
+     * @return Next row, or null at the end of the input
+     * @throws IOException if the input cannot be read
+     */
+    ImportRow<T> next() throws IOException;
+}
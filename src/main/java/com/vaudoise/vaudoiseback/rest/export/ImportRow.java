@@ -0,0 +1,24 @@
+package com.vaudoise.vaudoiseback.rest.export;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A parsed import row, or the reason it could not be parsed.
+ *
+ * @param <T> Row type
+ */
+@Getter
+@AllArgsConstructor
+public class ImportRow<T> {
+    /**
+     * Line of the input the row starts at, or document number for binary formats, 1-based
+     */
+    private final long line;
+    private final T value;
+    private final String error;
+
+    public boolean isValid() {
+        return error == null;
+    }
+}
@@ -0,0 +1,42 @@
+package com.vaudoise.vaudoiseback.rest.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes one JSON document per line (NDJSON).
+ */
+public class NdjsonExportWriter<T> implements ExportWriter<T> {
+
+    private final OutputStream out;
+    private final SequenceWriter writer;
+    private boolean empty = true;
+
+    public NdjsonExportWriter(OutputStream out, ObjectMapper objectMapper, Class<T> type) throws IOException {
+        this.out = out;
+        this.writer = objectMapper.writerFor(type)
+                .withRootValueSeparator("\n")
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValues(out);
+    }
+
+    @Override
+    public void write(T row) throws IOException {
+        writer.write(row);
+        empty = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+        if (!empty) {
+            // the separator only goes between documents, terminate the last line too
+            out.write('\n');
+        }
+        out.flush();
+    }
+}
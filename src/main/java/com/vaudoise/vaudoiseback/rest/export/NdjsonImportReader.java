@@ -0,0 +1,46 @@
+package com.vaudoise.vaudoiseback.rest.export;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads one JSON document per line (NDJSON). Blank lines are skipped.
+ */
+public class NdjsonImportReader<T> implements ImportReader<T> {
+
+    private final BufferedReader reader;
+    private final ObjectReader objectReader;
+    private long line;
+
+    public NdjsonImportReader(InputStream in, ObjectMapper objectMapper, Class<T> type) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.objectReader = objectMapper.readerFor(type);
+    }
+
+    @Override
+    public ImportRow<T> next() throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) continue;
+            try {
+                return new ImportRow<>(line, objectReader.readValue(text), null);
+            } catch (JsonProcessingException ex) {
+                return new ImportRow<>(line, null, ex.getOriginalMessage());
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -1,4 +1,4 @@
-package com.vaudoise.vaudoise;
+package com.vaudoise.vaudoiseback;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
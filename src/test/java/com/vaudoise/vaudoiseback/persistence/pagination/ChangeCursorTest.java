@@ -0,0 +1,61 @@
+package com.vaudoise.vaudoiseback.persistence.pagination;
+
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChangeCursorTest {
+
+    @Test
+    void decodesWhatItEncodes() throws CustomException {
+        ChangeCursor cursor = new ChangeCursor(LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_897_000), 2, 42L);
+
+        ChangeCursor decoded = ChangeCursor.decode(cursor.encode());
+
+        assertThat(decoded.getModifiedAt()).isEqualTo(cursor.getModifiedAt());
+        assertThat(decoded.getSource()).isEqualTo(2);
+        assertThat(decoded.getId()).isEqualTo(42L);
+    }
+
+    @Test
+    void decodesTheStartCursor() throws CustomException {
+        ChangeCursor decoded = ChangeCursor.decode(ChangeCursor.START.encode());
+
+        assertThat(decoded.getModifiedAt()).isEqualTo(ChangeCursor.START.getModifiedAt());
+        assertThat(decoded.getSource()).isEqualTo(-1);
+        assertThat(decoded.getId()).isZero();
+    }
+
+    @Test
+    void encodesUrlSafeTokens() {
+        String token = new ChangeCursor(LocalDateTime.of(2025, 1, 1, 0, 0), 1, Long.MAX_VALUE).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void rejectsTokensThatAreNotBase64() {
+        assertThatThrownBy(() -> ChangeCursor.decode("not a cursor!"))
+                .isInstanceOf(CustomException.class)
+                .extracting("errorKey").isEqualTo(String.valueOf(ErrorEnum.CHANGES_CURSOR.getCode()));
+    }
+
+    @Test
+    void rejectsTokensWithMissingOrInvalidParts() {
+        assertThatThrownBy(() -> ChangeCursor.decode(encode("2025-01-01T00:00\n1"))).isInstanceOf(CustomException.class);
+        assertThatThrownBy(() -> ChangeCursor.decode(encode("yesterday\n1\n42"))).isInstanceOf(CustomException.class);
+        assertThatThrownBy(() -> ChangeCursor.decode(encode("2025-01-01T00:00\nclient\n42"))).isInstanceOf(CustomException.class);
+        assertThatThrownBy(() -> ChangeCursor.decode(encode("2025-01-01T00:00\n1\n42\n7"))).isInstanceOf(CustomException.class);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,65 @@
+package com.vaudoise.vaudoiseback.persistence.pagination;
+
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void decodesWhatItEncodes() throws CustomException {
+        KeysetCursor cursor = new KeysetCursor("name", Sort.Direction.DESC, 42L, "Zürich, \"Hélène\"");
+
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        assertThat(decoded.getProperty()).isEqualTo("name");
+        assertThat(decoded.getDirection()).isEqualTo(Sort.Direction.DESC);
+        assertThat(decoded.getId()).isEqualTo(42L);
+        assertThat(decoded.getValue()).isEqualTo("Zürich, \"Hélène\"");
+    }
+
+    @Test
+    void keepsSeparatorsInTheSortValue() throws CustomException {
+        KeysetCursor cursor = new KeysetCursor("name", Sort.Direction.ASC, 1L, "first line\nsecond line");
+
+        assertThat(KeysetCursor.decode(cursor.encode()).getValue()).isEqualTo("first line\nsecond line");
+    }
+
+    @Test
+    void encodesUrlSafeTokens() {
+        String token = new KeysetCursor("cost", Sort.Direction.ASC, Long.MAX_VALUE, "???>>>~~~").encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void rejectsTokensThatAreNotBase64() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not a cursor!"))
+                .isInstanceOf(CustomException.class)
+                .extracting("errorKey").isEqualTo(String.valueOf(ErrorEnum.PAGINATION_CURSOR.getCode()));
+    }
+
+    @Test
+    void rejectsTokensWithMissingParts() {
+        String token = encode("name\nASC\n42");
+
+        assertThatThrownBy(() -> KeysetCursor.decode(token)).isInstanceOf(CustomException.class);
+    }
+
+    @Test
+    void rejectsUnknownDirectionsAndIds() {
+        assertThatThrownBy(() -> KeysetCursor.decode(encode("name\nUP\n42\nvalue"))).isInstanceOf(CustomException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(encode("name\nASC\nabc\nvalue"))).isInstanceOf(CustomException.class);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,200 @@
+package com.vaudoise.vaudoiseback.persistence.readmodel;
+
+import com.vaudoise.vaudoiseback.persistence.events.ChangeType;
+import com.vaudoise.vaudoiseback.persistence.events.ClientChangedEvent;
+import com.vaudoise.vaudoiseback.persistence.events.ContractChangedEvent;
+import com.vaudoise.vaudoiseback.persistence.repositories.ContractRepository;
+import com.vaudoise.vaudoiseback.rest.dto.ClientResponse;
+import com.vaudoise.vaudoiseback.rest.dto.ContractResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ActiveContractTotalsTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private ContractRepository contractRepository;
+    private ActiveContractTotals totals;
+
+    @BeforeEach
+    void setUp() {
+        contractRepository = mock(ContractRepository.class);
+        totals = new ActiveContractTotals(contractRepository, mock(PlatformTransactionManager.class), true);
+    }
+
+    @Test
+    void answersNothingBeforeItIsBuilt() {
+        assertThat(totals.get(1L)).isEmpty();
+    }
+
+    @Test
+    void loadsTheTotalsOfEveryClient() {
+        build(new ClientContractTotal(1L, new BigDecimal("100.00")), new ClientContractTotal(2L, new BigDecimal("50.00")));
+
+        assertThat(totals.isReady()).isTrue();
+        assertThat(totals.get(1L)).contains(new BigDecimal("100.00"));
+        assertThat(totals.get(2L)).contains(new BigDecimal("50.00"));
+        assertThat(totals.get(3L)).contains(BigDecimal.ZERO);
+    }
+
+    @Test
+    void appliesCommittedChangesOnly() {
+        build(new ClientContractTotal(1L, new BigDecimal("100.00")));
+
+        complete(new ContractChangedEvent(ChangeType.CREATED, null, contract(10L, 1L, "25.00", null)),
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertThat(totals.get(1L)).hasValueSatisfying(total -> assertThat(total).isEqualByComparingTo("100.00"));
+
+        complete(new ContractChangedEvent(ChangeType.CREATED, null, contract(10L, 1L, "25.00", null)),
+                TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(totals.get(1L)).hasValueSatisfying(total -> assertThat(total).isEqualByComparingTo("125.00"));
+    }
+
+    @Test
+    void movesTheCostOfUpdatedAndDeletedContracts() {
+        build(new ClientContractTotal(1L, new BigDecimal("100.00")));
+
+        complete(new ContractChangedEvent(ChangeType.UPDATED, contract(10L, 1L, "100.00", null),
+                contract(10L, 1L, "80.00", null)), TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(totals.get(1L)).hasValueSatisfying(total -> assertThat(total).isEqualByComparingTo("80.00"));
+
+        complete(new ContractChangedEvent(ChangeType.DELETED, contract(10L, 1L, "80.00", null), null),
+                TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(totals.get(1L)).hasValueSatisfying(total -> assertThat(total).isEqualByComparingTo("0.00"));
+    }
+
+    @Test
+    void countsOnlyContractsEndingAfterToday() {
+        build();
+
+        complete(new ContractChangedEvent(ChangeType.CREATED, null, contract(10L, 1L, "30.00", TODAY)),
+                TransactionSynchronization.STATUS_COMMITTED);
+        complete(new ContractChangedEvent(ChangeType.CREATED, null, contract(11L, 1L, "20.00", TODAY.plusDays(1))),
+                TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(totals.get(1L)).hasValueSatisfying(total -> assertThat(total).isEqualByComparingTo("20.00"));
+
+        // ending the contract today takes it out at once, and it is no longer scheduled for tomorrow
+        complete(new ContractChangedEvent(ChangeType.UPDATED, contract(11L, 1L, "20.00", TODAY.plusDays(1)),
+                contract(11L, 1L, "20.00", TODAY)), TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(totals.get(1L)).hasValueSatisfying(total -> assertThat(total).isEqualByComparingTo("0.00"));
+    }
+
+    @Test
+    void reloadsAClientFromTheDatabaseWhenTheOutcomeIsUnknown() {
+        build(new ClientContractTotal(1L, new BigDecimal("100.00")));
+        when(contractRepository.sumActiveContractCostsByClientId(1L)).thenReturn(new BigDecimal("140.00"));
+        when(contractRepository.findActiveContractExpiriesByClientId(1L)).thenReturn(List.of());
+
+        complete(new ContractChangedEvent(ChangeType.CREATED, null, contract(10L, 1L, "40.00", null)),
+                TransactionSynchronization.STATUS_UNKNOWN);
+
+        assertThat(totals.get(1L)).contains(new BigDecimal("140.00"));
+    }
+
+    @Test
+    void reloadsInsteadOfApplyingAChangeAlreadyLoadedByTheBuild() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            totals.onContractChanged(new ContractChangedEvent(ChangeType.CREATED, null, contract(10L, 1L, "25.00", null)));
+            // the build reads the change, committed before the transaction completes
+            build(new ClientContractTotal(1L, new BigDecimal("125.00")));
+            when(contractRepository.sumActiveContractCostsByClientId(1L)).thenReturn(new BigDecimal("125.00"));
+            when(contractRepository.findActiveContractExpiriesByClientId(1L)).thenReturn(List.of());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(totals.get(1L)).hasValueSatisfying(total -> assertThat(total).isEqualByComparingTo("125.00"));
+    }
+
+    @Test
+    void dropsTheTotalOfADeletedClient() {
+        build(new ClientContractTotal(1L, new BigDecimal("100.00")));
+
+        totals.onClientChanged(new ClientChangedEvent(ChangeType.DELETED,
+                new ClientResponse(1L, UUID.randomUUID(), null, "John Doe", "john@example.com", null, null, null)));
+
+        assertThat(totals.get(1L)).contains(BigDecimal.ZERO);
+    }
+
+    @Test
+    void verifyReportsAndRepairsDrift() {
+        build(new ClientContractTotal(1L, new BigDecimal("100.00")), new ClientContractTotal(2L, new BigDecimal("50.00")));
+        when(contractRepository.streamActiveContractTotals()).thenReturn(Stream.of(
+                new ClientContractTotal(1L, new BigDecimal("100.00")), new ClientContractTotal(2L, new BigDecimal("70.00"))));
+        when(contractRepository.sumActiveContractCostsByClientId(2L)).thenReturn(new BigDecimal("70.00"));
+        when(contractRepository.findActiveContractExpiriesByClientId(2L)).thenReturn(List.of());
+
+        totals.verify();
+
+        assertThat(totals.getDrift()).isEqualTo(1);
+        assertThat(totals.get(2L)).contains(new BigDecimal("70.00"));
+    }
+
+    @Test
+    void verifyDoesNotReportChangesCommittedDuringItsScan() {
+        build(new ClientContractTotal(1L, new BigDecimal("100.00")));
+        // the scan saw the total before a change that was applied before the recheck
+        when(contractRepository.streamActiveContractTotals()).thenReturn(Stream.of(new ClientContractTotal(1L, new BigDecimal("100.00"))));
+        complete(new ContractChangedEvent(ChangeType.CREATED, null, contract(10L, 1L, "25.00", null)),
+                TransactionSynchronization.STATUS_COMMITTED);
+        when(contractRepository.sumActiveContractCostsByClientId(1L)).thenReturn(new BigDecimal("125.00"));
+
+        totals.verify();
+
+        assertThat(totals.getDrift()).isZero();
+        assertThat(totals.get(1L)).hasValueSatisfying(total -> assertThat(total).isEqualByComparingTo("125.00"));
+    }
+
+    @Test
+    void aFailedBuildIsRetriedByTheVerification() {
+        when(contractRepository.streamActiveContractTotals()).thenThrow(new IllegalStateException("database down"));
+        totals.build();
+        assertThat(totals.isReady()).isFalse();
+
+        doReturn(Stream.of(new ClientContractTotal(1L, new BigDecimal("100.00")))).when(contractRepository).streamActiveContractTotals();
+        when(contractRepository.streamActiveContractExpiries()).thenReturn(Stream.empty());
+        totals.verify();
+
+        assertThat(totals.get(1L)).contains(new BigDecimal("100.00"));
+    }
+
+    private void build(ClientContractTotal... clientTotals) {
+        when(contractRepository.streamActiveContractTotals()).thenReturn(Stream.of(clientTotals));
+        when(contractRepository.streamActiveContractExpiries()).thenReturn(Stream.empty());
+        totals.build();
+    }
+
+    /**
+     * Publishes the event before commit, as the services do, then completes the transaction with the given status.
+     */
+    private void complete(ContractChangedEvent event, int status) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            totals.onContractChanged(event);
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(status));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static ContractResponse contract(Long id, Long clientId, String cost, LocalDate endDate) {
+        return new ContractResponse(id, UUID.randomUUID(), TODAY.minusYears(1), endDate, new BigDecimal(cost), clientId, null);
+    }
+}
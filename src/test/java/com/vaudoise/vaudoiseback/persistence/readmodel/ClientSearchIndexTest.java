@@ -0,0 +1,132 @@
+package com.vaudoise.vaudoiseback.persistence.readmodel;
+
+import com.vaudoise.vaudoiseback.persistence.entities.enums.ClientType;
+import com.vaudoise.vaudoiseback.persistence.events.ChangeType;
+import com.vaudoise.vaudoiseback.persistence.events.ClientChangedEvent;
+import com.vaudoise.vaudoiseback.persistence.repositories.ClientRepository;
+import com.vaudoise.vaudoiseback.rest.dto.ClientResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClientSearchIndexTest {
+
+    private ClientRepository clientRepository;
+    private ClientSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        clientRepository = mock(ClientRepository.class);
+        index = new ClientSearchIndex(clientRepository, mock(PlatformTransactionManager.class), true);
+    }
+
+    @Test
+    void answersNothingBeforeItIsBuilt() {
+        assertThat(index.search("doe")).isEmpty();
+    }
+
+    @Test
+    void findsSubstringsOfEveryFieldIgnoringCase() {
+        build(new ClientSearchDocument(1L, "John Doe", "john@example.com", "+41211234567"),
+                new ClientSearchDocument(2L, "Jane Roe", "jane@example.org", "+41791112233"),
+                new ClientSearchDocument(3L, "Doerflinger AG", "info@doerflinger.ch", null));
+
+        assertThat(index.search("DOE")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(1L, 3L));
+        assertThat(index.search("example.org")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(2L));
+        assertThat(index.search("2112345")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(1L));
+        assertThat(index.search("nobody")).hasValueSatisfying(ids -> assertThat(ids).isEmpty());
+    }
+
+    @Test
+    void ignoresDiacriticsLikeTheDatabaseCollation() {
+        build(new ClientSearchDocument(1L, "Hélène Zürich", "helene@example.com", null),
+                new ClientSearchDocument(2L, "Zurich Insurance", "contact@zurich.ch", null));
+
+        assertThat(index.search("zurich")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(1L, 2L));
+        assertThat(index.search("Zürich")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(1L, 2L));
+        assertThat(index.search("HÉLÈNE")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(1L));
+    }
+
+    @Test
+    void confirmsTheSubstringWhenTrigramsComeFromDifferentFields() {
+        build(new ClientSearchDocument(1L, "abcd", "wxyz", null));
+
+        // "bcd" and "wxy" are both indexed for the client, but not as one string
+        assertThat(index.search("bcdwxy")).hasValueSatisfying(ids -> assertThat(ids).isEmpty());
+        assertThat(index.search("bcd")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(1L));
+    }
+
+    @Test
+    void leavesQueriesShorterThanATrigramToSql() {
+        build(new ClientSearchDocument(1L, "Li Na", "li@example.com", null));
+
+        assertThat(index.search("li")).isEmpty();
+        assertThat(index.search(null)).isEmpty();
+    }
+
+    @Test
+    void followsClientChanges() {
+        build(new ClientSearchDocument(1L, "John Doe", "john@example.com", null));
+
+        index.onClientChanged(new ClientChangedEvent(ChangeType.CREATED, client(2L, "Anna Doe", "anna@example.com")));
+        assertThat(index.search("doe")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(1L, 2L));
+
+        index.onClientChanged(new ClientChangedEvent(ChangeType.UPDATED, client(1L, "John Smith", "john@example.com")));
+        assertThat(index.search("doe")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(2L));
+        assertThat(index.search("smith")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(1L));
+
+        index.onClientChanged(new ClientChangedEvent(ChangeType.DELETED, client(2L, "Anna Doe", "anna@example.com")));
+        assertThat(index.search("doe")).hasValueSatisfying(ids -> assertThat(ids).isEmpty());
+        assertThat(index.search("anna")).hasValueSatisfying(ids -> assertThat(ids).isEmpty());
+    }
+
+    @Test
+    void retriesAFailedBuildFromScratch() {
+        // the client is deleted while the build runs, then the build fails
+        when(clientRepository.streamSearchDocuments()).thenReturn(Stream.of(
+                new ClientSearchDocument(1L, "John Doe", "john@example.com", null),
+                new ClientSearchDocument(2L, "Anna Doe", "anna@example.com", null)
+        ).map(document -> {
+            if (document.getId() == 2L) {
+                index.onClientChanged(new ClientChangedEvent(ChangeType.DELETED, client(1L, "John Doe", "john@example.com")));
+                throw new IllegalStateException("connection lost");
+            }
+            return document;
+        }));
+        index.build();
+        assertThat(index.isReady()).isFalse();
+        assertThat(index.search("doe")).isEmpty();
+
+        // a client with the id of the deleted one is read again by the retry
+        when(clientRepository.streamSearchDocuments()).thenReturn(Stream.of(
+                new ClientSearchDocument(1L, "John Doe", "john@example.com", null)));
+        index.retry();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.search("doe")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(1L));
+    }
+
+    @Test
+    void normalizesToLowerCaseWithoutMarks() {
+        assertThat(ClientSearchIndex.normalize("Ça Häuft Sich")).isEqualTo("ca hauft sich");
+        assertThat(ClientSearchIndex.normalize("Plain ASCII")).isEqualTo("plain ascii");
+        assertThat(ClientSearchIndex.normalize(null)).isEmpty();
+    }
+
+    private void build(ClientSearchDocument... documents) {
+        when(clientRepository.streamSearchDocuments()).thenReturn(Stream.of(documents));
+        index.build();
+    }
+
+    private static ClientResponse client(Long id, String name, String email) {
+        return new ClientResponse(id, UUID.randomUUID(), ClientType.PERSON, name, email, null, LocalDate.of(1980, 1, 1), null);
+    }
+}
@@ -0,0 +1,193 @@
+package com.vaudoise.vaudoiseback.persistence.readmodel;
+
+import com.vaudoise.vaudoiseback.persistence.analytics.ContractGrouping;
+import com.vaudoise.vaudoiseback.persistence.entities.enums.ClientType;
+import com.vaudoise.vaudoiseback.persistence.events.ChangeType;
+import com.vaudoise.vaudoiseback.persistence.events.ContractChangedEvent;
+import com.vaudoise.vaudoiseback.persistence.repositories.ClientRepository;
+import com.vaudoise.vaudoiseback.persistence.repositories.ContractRepository;
+import com.vaudoise.vaudoiseback.rest.dto.ContractAnalyticsGroup;
+import com.vaudoise.vaudoiseback.rest.dto.ContractResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ContractSnapshotTest {
+
+    private static final LocalDate AS_OF = LocalDate.of(2025, 6, 15);
+
+    private ContractRepository contractRepository;
+    private ClientRepository clientRepository;
+    private ContractSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        contractRepository = mock(ContractRepository.class);
+        clientRepository = mock(ClientRepository.class);
+        snapshot = new ContractSnapshot(contractRepository, clientRepository, mock(PlatformTransactionManager.class), true);
+    }
+
+    @Test
+    void answersNothingBeforeItIsBuilt() {
+        assertThat(snapshot.aggregateActive(ContractGrouping.CLIENT_TYPE, AS_OF)).isEmpty();
+    }
+
+    @Test
+    void computesThePercentilesOfASingleRow() {
+        build(costs("42.50"));
+
+        assertGroupMatches(single(ContractGrouping.CLIENT_TYPE), cents(4250));
+    }
+
+    @Test
+    void interpolatesThePercentilesOfAnEvenCount() {
+        build(costs("20.00", "10.00", "40.00", "30.00"));
+
+        assertGroupMatches(single(ContractGrouping.CLIENT_TYPE), cents(2000, 1000, 4000, 3000));
+    }
+
+    @Test
+    void interpolatesThePercentilesOfAnOddCount() {
+        build(costs("30.00", "10.00", "20.00"));
+
+        assertGroupMatches(single(ContractGrouping.CLIENT_TYPE), cents(3000, 1000, 2000));
+    }
+
+    @Test
+    void computesThePercentilesOfRowsSharingAValue() {
+        build(costs("50.00", "50.00", "50.00", "10.00", "50.00", "90.00", "50.00"));
+
+        assertGroupMatches(single(ContractGrouping.CLIENT_TYPE), cents(5000, 5000, 5000, 1000, 5000, 9000, 5000));
+    }
+
+    @Test
+    void matchesASortAcrossParallelChunks() {
+        Random random = new Random(42);
+        long[] values = new long[150_000];
+        List<ContractResponse> contracts = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            // few distinct values, so that the selection meets many duplicates
+            values[i] = random.nextInt(2_000) * 25L;
+            contracts.add(contract(i + 1L, 1L, BigDecimal.valueOf(values[i], 2), AS_OF.minusYears(1), null));
+        }
+        build(contracts);
+
+        assertGroupMatches(single(ContractGrouping.CLIENT_TYPE), values);
+    }
+
+    @Test
+    void countsOnlyTheContractsInForceWithAKnownClient() {
+        build(List.of(
+                contract(1L, 1L, new BigDecimal("10.00"), AS_OF, null),
+                contract(2L, 1L, new BigDecimal("20.00"), AS_OF.minusDays(10), AS_OF.plusDays(1)),
+                // not started, ended on the date, client unknown
+                contract(3L, 1L, new BigDecimal("30.00"), AS_OF.plusDays(1), null),
+                contract(4L, 1L, new BigDecimal("40.00"), AS_OF.minusDays(10), AS_OF),
+                contract(5L, 99L, new BigDecimal("50.00"), AS_OF.minusDays(10), null)));
+
+        ContractAnalyticsGroup group = single(ContractGrouping.CLIENT_TYPE);
+        assertThat(group.getKey()).isEqualTo(ClientType.PERSON.name());
+        assertThat(group.getCount()).isEqualTo(2);
+        assertThat(group.getTotal()).isEqualByComparingTo("30.00");
+    }
+
+    @Test
+    void groupsByStartMonthAndCostBand() {
+        build(List.of(
+                contract(1L, 1L, new BigDecimal("50.00"), LocalDate.of(2025, 1, 10), null),
+                contract(2L, 1L, new BigDecimal("150.00"), LocalDate.of(2025, 1, 20), null),
+                contract(3L, 1L, new BigDecimal("6000.00"), LocalDate.of(2025, 3, 1), null)));
+
+        assertThat(snapshot.aggregateActive(ContractGrouping.START_MONTH, AS_OF).orElseThrow())
+                .extracting(ContractAnalyticsGroup::getKey, ContractAnalyticsGroup::getCount)
+                .containsExactly(tuple("2025-01", 2L), tuple("2025-03", 1L));
+        assertThat(snapshot.aggregateActive(ContractGrouping.COST_BAND, AS_OF).orElseThrow())
+                .extracting(ContractAnalyticsGroup::getKey)
+                .containsExactly("0-100", "100-250", "5000+");
+    }
+
+    @Test
+    void dropsChangesUntilAFailedBuildIsRetried() {
+        when(clientRepository.streamTypes()).thenThrow(new IllegalStateException("database down"));
+        snapshot.build();
+        assertThat(snapshot.isReady()).isFalse();
+
+        // read again by the next build, not replayed on top of it
+        snapshot.onContractChanged(new ContractChangedEvent(ChangeType.CREATED, null,
+                contract(7L, 1L, new BigDecimal("70.00"), AS_OF.minusDays(1), null)));
+        doReturn(Stream.<Object[]>of(new Object[]{1L, ClientType.PERSON})).when(clientRepository).streamTypes();
+        when(contractRepository.streamResponsesWithClient()).thenReturn(Stream.of(
+                contract(1L, 1L, new BigDecimal("10.00"), AS_OF.minusDays(1), null)));
+        snapshot.retry();
+
+        assertThat(snapshot.isReady()).isTrue();
+        ContractAnalyticsGroup group = single(ContractGrouping.CLIENT_TYPE);
+        assertThat(group.getCount()).isEqualTo(1);
+        assertThat(group.getTotal()).isEqualByComparingTo("10.00");
+    }
+
+    private void build(List<ContractResponse> contracts) {
+        when(clientRepository.streamTypes()).thenReturn(Stream.<Object[]>of(new Object[]{1L, ClientType.PERSON}));
+        when(contractRepository.streamResponsesWithClient()).thenReturn(contracts.stream());
+        snapshot.build();
+    }
+
+    private ContractAnalyticsGroup single(ContractGrouping grouping) {
+        List<ContractAnalyticsGroup> groups = snapshot.aggregateActive(grouping, AS_OF).orElseThrow();
+        assertThat(groups).hasSize(1);
+        return groups.getFirst();
+    }
+
+    /**
+     * Compares a group with the count, total and {@code PERCENTILE_CONT} of the sorted values.
+     */
+    private static void assertGroupMatches(ContractAnalyticsGroup group, long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        assertThat(group.getCount()).isEqualTo(sorted.length);
+        assertThat(group.getTotal()).isEqualByComparingTo(BigDecimal.valueOf(Arrays.stream(sorted).sum(), 2));
+        assertThat(group.getP50()).isEqualByComparingTo(percentile(sorted, 0.5));
+        assertThat(group.getP90()).isEqualByComparingTo(percentile(sorted, 0.9));
+        assertThat(group.getP99()).isEqualByComparingTo(percentile(sorted, 0.99));
+    }
+
+    private static BigDecimal percentile(long[] sorted, double fraction) {
+        double position = (sorted.length - 1) * fraction;
+        int lower = (int) Math.floor(position);
+        int upper = Math.min(lower + 1, sorted.length - 1);
+        double cents = sorted[lower] + (sorted[upper] - sorted[lower]) * (position - lower);
+        return BigDecimal.valueOf(cents).movePointLeft(2).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static List<ContractResponse> costs(String... costs) {
+        List<ContractResponse> contracts = new ArrayList<>();
+        for (int i = 0; i < costs.length; i++) {
+            contracts.add(contract(i + 1L, 1L, new BigDecimal(costs[i]), AS_OF.minusYears(1), null));
+        }
+        return contracts;
+    }
+
+    private static long[] cents(long... cents) {
+        return cents;
+    }
+
+    private static ContractResponse contract(Long id, Long clientId, BigDecimal cost, LocalDate start, LocalDate end) {
+        return new ContractResponse(id, UUID.randomUUID(), start, end, cost, clientId, null);
+    }
+}
@@ -0,0 +1,156 @@
+package com.vaudoise.vaudoiseback.persistence.service;
+
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import com.vaudoise.vaudoiseback.persistence.entities.Client;
+import com.vaudoise.vaudoiseback.persistence.entities.Contract;
+import com.vaudoise.vaudoiseback.persistence.entities.PersonClient;
+import com.vaudoise.vaudoiseback.persistence.entities.Tombstone;
+import com.vaudoise.vaudoiseback.persistence.entities.enums.ChangeEntityType;
+import com.vaudoise.vaudoiseback.persistence.pagination.ChangeCursor;
+import com.vaudoise.vaudoiseback.persistence.repositories.ClientRepository;
+import com.vaudoise.vaudoiseback.persistence.repositories.ContractRepository;
+import com.vaudoise.vaudoiseback.persistence.repositories.TombstoneRepository;
+import com.vaudoise.vaudoiseback.rest.dto.ChangeEntry;
+import com.vaudoise.vaudoiseback.rest.dto.ChangeFeedPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChangeFeedServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 6, 1, 10, 0);
+    private static final LocalDateTime T1 = T0.plusSeconds(1);
+
+    private ClientRepository clientRepository;
+    private ContractRepository contractRepository;
+    private TombstoneRepository tombstoneRepository;
+    private ChangeFeedService service;
+
+    @BeforeEach
+    void setUp() {
+        clientRepository = mock(ClientRepository.class);
+        contractRepository = mock(ContractRepository.class);
+        tombstoneRepository = mock(TombstoneRepository.class);
+        service = new ChangeFeedService(clientRepository, contractRepository, tombstoneRepository, Duration.ofSeconds(2));
+    }
+
+    @Test
+    void mergesTheSourcesByTimeThenSourceThenId() throws CustomException {
+        clients(client(5L, T1));
+        contracts(contract(9L, T0), contract(2L, T1));
+        tombstones(tombstone(1L, 7L, T1));
+
+        ChangeFeedPage page = service.changes(null, 10);
+
+        assertThat(page.getChanges())
+                .extracting(ChangeEntry::getEntity, ChangeEntry::getOperation, ChangeEntry::getId)
+                .containsExactly(
+                        tuple(ChangeEntityType.CONTRACT, ChangeEntry.Operation.UPSERT, 9L),
+                        tuple(ChangeEntityType.CLIENT, ChangeEntry.Operation.UPSERT, 5L),
+                        tuple(ChangeEntityType.CONTRACT, ChangeEntry.Operation.UPSERT, 2L),
+                        tuple(ChangeEntityType.CONTRACT, ChangeEntry.Operation.DELETE, 7L));
+        assertThat(page.isHasMore()).isFalse();
+        ChangeCursor next = ChangeCursor.decode(page.getNextCursor());
+        assertThat(next.getModifiedAt()).isEqualTo(T1);
+        assertThat(next.getSource()).isEqualTo(2);
+        assertThat(next.getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void cutsThePageAtTheLimitAndResumesAfterItsLastEntry() throws CustomException {
+        clients(client(5L, T1));
+        contracts(contract(9L, T0), contract(2L, T1));
+        tombstones(tombstone(1L, 7L, T1));
+
+        ChangeFeedPage page = service.changes(null, 2);
+
+        assertThat(page.getChanges()).extracting(ChangeEntry::getId).containsExactly(9L, 5L);
+        assertThat(page.isHasMore()).isTrue();
+        ChangeCursor next = ChangeCursor.decode(page.getNextCursor());
+        assertThat(next.getModifiedAt()).isEqualTo(T1);
+        assertThat(next.getSource()).isZero();
+        assertThat(next.getId()).isEqualTo(5L);
+    }
+
+    @Test
+    void readsEachSourceFromItsPositionAtTheCursorTime() throws CustomException {
+        clients();
+        contracts();
+        tombstones();
+        String since = new ChangeCursor(T1, 1, 2L).encode();
+
+        ChangeFeedPage page = service.changes(since, 10);
+
+        // clients are done with T1, contracts resume after id 2, tombstones have not started T1
+        verify(clientRepository).findModifiedAfter(eq(T1), eq(Long.MAX_VALUE), any(), eq(Limit.of(11)));
+        verify(contractRepository).findModifiedAfter(eq(T1), eq(2L), any(), eq(Limit.of(11)));
+        verify(tombstoneRepository).findWrittenAfter(eq(T1), eq(Long.MIN_VALUE), any(), eq(Limit.of(11)));
+        assertThat(page.getChanges()).isEmpty();
+        assertThat(page.getNextCursor()).isEqualTo(since);
+    }
+
+    @Test
+    void rejectsLimitsOutOfRange() {
+        assertThatThrownBy(() -> service.changes(null, 0))
+                .isInstanceOf(CustomException.class)
+                .extracting("errorKey").isEqualTo(String.valueOf(ErrorEnum.CHANGES_LIMIT.getCode()));
+        assertThatThrownBy(() -> service.changes(null, ChangeFeedService.MAX_LIMIT + 1)).isInstanceOf(CustomException.class);
+    }
+
+    private void clients(Client... clients) {
+        when(clientRepository.findModifiedAfter(any(), any(), any(), any())).thenReturn(List.of(clients));
+    }
+
+    private void contracts(Contract... contracts) {
+        when(contractRepository.findModifiedAfter(any(), any(), any(), any())).thenReturn(List.of(contracts));
+    }
+
+    private void tombstones(Tombstone... tombstones) {
+        when(tombstoneRepository.findWrittenAfter(any(), any(), any(), any())).thenReturn(List.of(tombstones));
+    }
+
+    private static Client client(Long id, LocalDateTime modifiedAt) {
+        PersonClient client = new PersonClient();
+        client.setId(id);
+        client.setUuid(UUID.randomUUID());
+        client.setName("John Doe");
+        client.setModifiedAt(modifiedAt);
+        return client;
+    }
+
+    private static Contract contract(Long id, LocalDateTime modifiedAt) {
+        Contract contract = new Contract();
+        contract.setId(id);
+        contract.setStartDate(LocalDate.of(2025, 1, 1));
+        contract.setCost(new BigDecimal("100.00"));
+        contract.setModifiedAt(modifiedAt);
+        return contract;
+    }
+
+    private static Tombstone tombstone(Long id, Long contractId, LocalDateTime deletedAt) {
+        Tombstone tombstone = new Tombstone();
+        tombstone.setId(id);
+        tombstone.setEntityType(ChangeEntityType.CONTRACT);
+        tombstone.setEntityId(contractId);
+        tombstone.setUuid(UUID.randomUUID().toString());
+        tombstone.setDeletedAt(deletedAt);
+        return tombstone;
+    }
+}
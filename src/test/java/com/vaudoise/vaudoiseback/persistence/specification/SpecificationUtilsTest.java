@@ -0,0 +1,125 @@
+package com.vaudoise.vaudoiseback.persistence.specification;
+
+import com.vaudoise.vaudoiseback.exception.CustomException;
+import com.vaudoise.vaudoiseback.exception.ErrorEnum;
+import com.vaudoise.vaudoiseback.persistence.entities.Contract;
+import com.vaudoise.vaudoiseback.persistence.repositories.ContractRepository;
+import com.vaudoise.vaudoiseback.persistence.service.BaseJpaPersistence;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpecificationUtilsTest {
+
+    @Test
+    void convertsValuesToTheAttributeType() {
+        UUID uuid = UUID.randomUUID();
+
+        assertCriteria(criteria("cost:100.50"), SearchOperation.EQUALITY, new BigDecimal("100.50"));
+        assertCriteria(criteria("id!7"), SearchOperation.NEGATION, 7L);
+        assertCriteria(criteria("uuid:" + uuid), SearchOperation.EQUALITY, uuid);
+    }
+
+    @Test
+    void readsRanges() {
+        assertCriteria(criteria("cost>=100"), SearchOperation.GREATER_THAN_OR_EQUAL, new BigDecimal("100"));
+        assertCriteria(criteria("cost>100"), SearchOperation.GREATER_THAN, new BigDecimal("100"));
+        assertCriteria(criteria("startDate<=2025-01-31"), SearchOperation.LESS_THAN_OR_EQUAL, LocalDate.of(2025, 1, 31));
+        assertCriteria(criteria("startDate<2025-01-01"), SearchOperation.LESS_THAN, LocalDate.of(2025, 1, 1));
+    }
+
+    @Test
+    void readsInLists() {
+        assertCriteria(criteria("id:1|2|3"), SearchOperation.IN, List.of(1L, 2L, 3L));
+        assertCriteria(criteria("endDate:2025-01-01|2026-01-01"), SearchOperation.IN,
+                List.of(LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1)));
+    }
+
+    @Test
+    void readsNullChecks() {
+        assertCriteria(criteria("endDate:null"), SearchOperation.IS_NULL, null);
+        assertCriteria(criteria("endDate!null"), SearchOperation.IS_NOT_NULL, null);
+    }
+
+    @Test
+    void keepsLikeValuesAsText() {
+        assertCriteria(criteria("uuid:*abc*"), SearchOperation.CONTAINS, "abc");
+        assertCriteria(criteria("uuid:abc*"), SearchOperation.STARTS_WITH, "abc");
+        assertCriteria(criteria("uuid:*abc"), SearchOperation.ENDS_WITH, "abc");
+        assertCriteria(criteria("cost~1%"), SearchOperation.LIKE, "1%");
+    }
+
+    @Test
+    void matchesTheWordNullWhenItHasWildcards() {
+        assertCriteria(criteria("uuid:*null*"), SearchOperation.CONTAINS, "null");
+        assertCriteria(criteria("uuid:null*"), SearchOperation.STARTS_WITH, "null");
+        // free text is searched in the text fields of the entity, the uuid for a contract
+        assertCriteria(criteria("null"), SearchOperation.CONTAINS, "null");
+    }
+
+    @Test
+    void combinesConditions() {
+        assertThat(SpecificationUtils.compileQuery("cost>=100,endDate:null", Contract.class, null))
+                .isNotNull()
+                .isNotInstanceOf(SpecificationImpl.class);
+    }
+
+    @Test
+    void rejectsUnknownAttributesAndInvalidValues() {
+        assertThatThrownBy(() -> SpecificationUtils.compileQuery("premium>=100", Contract.class, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SpecificationUtils.compileQuery("cost>=cheap", Contract.class, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SpecificationUtils.compileQuery("id:1|two", Contract.class, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void answersInvalidQueriesWithABadRequest() {
+        ContractPersistence persistence = new ContractPersistence();
+
+        assertThatThrownBy(() -> persistence.specification("premium>=100"))
+                .isInstanceOf(CustomException.class)
+                .satisfies(ex -> {
+                    assertThat(((CustomException) ex).getErrorKey()).isEqualTo(String.valueOf(ErrorEnum.SEARCH_QUERY.getCode()));
+                    assertThat(((CustomException) ex).getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+                });
+    }
+
+    private static SearchCriteria criteria(String query) {
+        Specification<Contract> spec = SpecificationUtils.compileQuery(query, Contract.class, null);
+        assertThat(spec).isInstanceOf(SpecificationImpl.class);
+        return ((SpecificationImpl<Contract>) spec).getCriteria();
+    }
+
+    private static void assertCriteria(SearchCriteria criteria, SearchOperation operation, Object value) {
+        assertThat(criteria.getOperation()).isEqualTo(operation);
+        assertThat(criteria.getValue()).isEqualTo(value);
+    }
+
+    /**
+     * Persistence over a repository that is never called, the query is only parsed
+     */
+    private static final class ContractPersistence extends BaseJpaPersistence<ContractRepository, Contract, Long> {
+
+        ContractPersistence() {
+            super((ContractRepository) Proxy.newProxyInstance(ContractRepository.class.getClassLoader(),
+                    new Class<?>[]{ContractRepository.class}, (proxy, method, args) -> {
+                        throw new UnsupportedOperationException(method.getName());
+                    }));
+        }
+
+        Specification<Contract> specification(String query) throws CustomException {
+            return baseQuerySpecification(query);
+        }
+    }
+}